@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+# Compares the JVM jar and the native image: time to first request, RSS and
+# steady-state throughput of GET /api/auth/profile, both against in-memory H2.
+#
+# Build both first:
+#   mvn -DskipTests package                    -> target/signup-project-1.0.0.jar
+#   mvn -Pnative -DskipTests native:compile    -> target/signup-project
+# Usage: scripts/benchmark-native.sh [seconds] [concurrency]
+# Uses ab (apache2-utils) for load when installed, otherwise a sequential curl
+# loop, which measures process spawning more than the server; compare like with like.
+set -euo pipefail
+
+DURATION=${1:-30}
+CONCURRENCY=${2:-16}
+PORT=${PORT:-18090}
+BASE="http://localhost:$PORT/api/auth"
+cd "$(dirname "$0")/.."
+
+# Prod has no default JWT secret or node id; a throwaway secret and node 0 are enough here
+JWT_SECRET=${JWT_SECRET:-$(head -c 48 /dev/urandom | base64 | tr -d '\n')}
+
+APP_ARGS=(--server.port="$PORT"
+          --spring.profiles.active=prod
+          --jwt.secret="$JWT_SECRET"
+          --ids.node-id=0
+          --spring.datasource.url="jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1"
+          --spring.datasource.driver-class-name=org.h2.Driver
+          --spring.datasource.username=sa
+          --spring.datasource.password=)
+
+now_ms() { date +%s%3N; }
+rss_mb() { awk '/VmRSS/ {printf "%.1f", $2 / 1024}' "/proc/$1/status"; }
+
+run() {
+    local name=$1; shift
+    local started pid ready token
+    started=$(now_ms)
+    "$@" "${APP_ARGS[@]}" > "target/benchmark-$name.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/.well-known/jwks.json"; do
+        kill -0 "$pid" 2>/dev/null || { echo "$name failed to start, see target/benchmark-$name.log"; return 1; }
+        sleep 0.01
+    done
+    ready=$(( $(now_ms) - started ))
+    local idle_rss
+    idle_rss=$(rss_mb "$pid")
+
+    curl -sf -o /dev/null -X POST "$BASE/signup" -H 'Content-Type: application/json' \
+        -d '{"name":"Bench","contactNumber":"9876543210","email":"bench@example.com","password":"Passw0rd!"}'
+    token=$(curl -sf -X POST "$BASE/login" -H 'Content-Type: application/json' \
+        -d '{"email":"bench@example.com","password":"Passw0rd!"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+    # Warm up (JIT for the JVM, page faults for both), then measure
+    load 5 "$token" > /dev/null
+    local throughput
+    throughput=$(load "$DURATION" "$token")
+    printf '%-7s first request %6d ms   RSS idle %7s MB   RSS loaded %7s MB   %10s req/s\n' \
+        "$name" "$ready" "$idle_rss" "$(rss_mb "$pid")" "$throughput"
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+load() {
+    local seconds=$1 token=$2
+    if command -v ab > /dev/null; then
+        ab -q -t "$seconds" -n 100000000 -c "$CONCURRENCY" -k -H "Authorization: Bearer $token" "$BASE/profile" \
+            | awk '/Requests per second/ {print $4}'
+    else
+        local count=0 end=$(( $(date +%s) + seconds ))
+        while [ "$(date +%s)" -lt "$end" ]; do
+            curl -s -o /dev/null -H "Authorization: Bearer $token" "$BASE/profile" && count=$((count + 1))
+        done
+        echo $(( count / seconds ))
+    fi
+}
+
+if [ -f target/signup-project-1.0.0.jar ]; then run jvm java -jar target/signup-project-1.0.0.jar; fi
+if [ -x target/signup-project ]; then run native target/signup-project; else echo "native  target/signup-project not built"; fi
@@ -1,17 +1,43 @@
 package com.signup;
 
 import com.signup.database.DatabaseService;
+import com.signup.database.ShardRebalancer;
+import com.signup.service.AuthService;
+import com.signup.service.JitWarmUp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SignupProjectApplication implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(SignupProjectApplication.class);
+
     @Autowired
     private DatabaseService databaseService;
 
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JitWarmUp jitWarmUp;
+
+    @Value("${datasource.shards.rebalance:false}")
+    private boolean rebalanceShards;
+
+    // Run schema checks off the startup path; the tables already exist in production
+    @Value("${startup.async-schema-init:false}")
+    private boolean asyncSchemaInit;
+
     public static void main(String[] args) {
         SpringApplication.run(SignupProjectApplication.class, args);
     }
@@ -20,10 +46,27 @@ public class SignupProjectApplication implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
-        // Initialize database table on startup
+        // Initialize database table on startup. A rebalance moves rows that lookups would miss meanwhile,
+        // so it always finishes, after the schema checks it depends on, before the instance turns ready.
+        if (asyncSchemaInit && !rebalanceShards) {
+            Thread init = new Thread(this::initializeDatabase, "schema-init");
+            init.setDaemon(true);
+            init.start();
+        } else {
+            initializeDatabase();
+        }
+        // Readiness (/health/readiness) turns healthy only after runners return, so traffic meets compiled code
+        jitWarmUp.run();
+        log.info("Application started successfully!");
+        log.info("Swagger UI: http://localhost:8080/swagger-ui.html");
+        log.info("H2 Console: http://localhost:8080/h2-console");
+    }
+
+    private void initializeDatabase() {
         databaseService.initializeDatabase();
-        System.out.println("Application started successfully!");
-        System.out.println("Swagger UI: http://localhost:8080/swagger-ui.html");
-        System.out.println("H2 Console: http://localhost:8080/h2-console");
+        if (rebalanceShards) {
+            shardRebalancer.rebalance();
+        }
+        authService.restoreSessions(); // Needs the epoch_changed_at column
     }
-} 
\ No newline at end of file
+}
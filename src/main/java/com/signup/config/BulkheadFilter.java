@@ -0,0 +1,141 @@
+package com.signup.config;
+
+import com.signup.util.ConcurrencyLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Separate adaptive concurrency limits (bulkheads) per endpoint class.
+ *
+ * Signup and login spend most of their time hashing passwords, so a burst of
+ * them can occupy every request thread and CPU while profile, refresh and
+ * logout only need a token check and a lookup. Each class gets its own
+ * ConcurrencyLimiter; requests over their class's limit are answered with
+ * 503 and Retry-After right away, ahead of Spring Security, so shed requests
+ * cost almost nothing. Other paths are not limited.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10) // Ahead of the security filter chain
+@Lazy(false) // Owns a @Scheduled task, which lazy initialization would never start
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkheadFilter.class);
+
+    private static final byte[] BUSY =
+            ResponseJsonConverter.encodeStatus(false, "The server is busy. Please retry shortly.");
+
+    // CPU-bound: password hashing
+    static final String[] HASHING_ROUTES = {"/api/auth/signup", "/api/auth/login"};
+
+    // Cheap: token checks and indexed lookups
+    static final String[] TOKEN_ROUTES = {
+        "/api/auth/profile", "/api/auth/refresh", "/api/auth/logout", "/api/auth/introspect",
+        "/api/auth/users/lookup"
+    };
+
+    @Value("${bulkhead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bulkhead.hashing.initial-limit:4}")
+    private int hashingInitialLimit;
+
+    @Value("${bulkhead.hashing.min-limit:1}")
+    private int hashingMinLimit;
+
+    @Value("${bulkhead.hashing.max-limit:32}")
+    private int hashingMaxLimit;
+
+    @Value("${bulkhead.token.initial-limit:50}")
+    private int tokenInitialLimit;
+
+    @Value("${bulkhead.token.min-limit:8}")
+    private int tokenMinLimit;
+
+    @Value("${bulkhead.token.max-limit:150}")
+    private int tokenMaxLimit;
+
+    // How far latency may rise over its long-term average before a limit shrinks
+    @Value("${bulkhead.latency-tolerance:1.5}")
+    private double latencyTolerance;
+
+    private ConcurrencyLimiter[] limiters = new ConcurrencyLimiter[0];
+    private RouteTable<ConcurrencyLimiter> routes = new RouteTable<>(null);
+    private long reportedRejections; // Rejections seen by the last report
+
+    @PostConstruct
+    void createLimiters() {
+        if (!enabled) {
+            return;
+        }
+        ConcurrencyLimiter hashing = new ConcurrencyLimiter("hashing",
+                hashingInitialLimit, hashingMinLimit, hashingMaxLimit, latencyTolerance);
+        ConcurrencyLimiter token = new ConcurrencyLimiter("token",
+                tokenInitialLimit, tokenMinLimit, tokenMaxLimit, latencyTolerance);
+        limiters = new ConcurrencyLimiter[] {hashing, token};
+        routes = new RouteTable<ConcurrencyLimiter>(null)
+                .add(hashing, HASHING_ROUTES)
+                .add(token, TOKEN_ROUTES);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return limiter(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ConcurrencyLimiter limiter = limiter(request);
+        if (!limiter.tryAcquire()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(BUSY.length);
+            response.getOutputStream().write(BUSY);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(start);
+        }
+    }
+
+    // Log limits and shed requests, when requests were shed since the last report
+    @Scheduled(fixedDelayString = "${bulkhead.report-interval-ms:60000}")
+    void report() {
+        long rejections = 0;
+        for (ConcurrencyLimiter limiter : limiters) {
+            rejections += limiter.rejected();
+        }
+        if (rejections == reportedRejections) {
+            return;
+        }
+        reportedRejections = rejections;
+        for (ConcurrencyLimiter limiter : limiters) {
+            log.info("Bulkhead {}: limit {}, {} in flight, {} ms average latency, {} requests shed",
+                    limiter.name(), limiter.limit(), limiter.inFlight(),
+                    limiter.shortLatencyNanos() / 1_000_000, limiter.rejected());
+        }
+    }
+
+    private ConcurrencyLimiter limiter(HttpServletRequest request) {
+        return routes.lookup(request.getRequestURI(), request.getContextPath().length());
+    }
+}
@@ -0,0 +1,34 @@
+package com.signup.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps roughly one in sampleRate DEBUG/TRACE events from loggers that have
+ * them enabled. Runs before the event is built, so dropped events cost no
+ * formatting; guarded isDebugEnabled() blocks are sampled the same way.
+ */
+public class DebugSamplingFilter extends TurboFilter {
+
+    private int sampleRate = 1;
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (sampleRate == 1 || level == null || level.toInt() > Level.DEBUG_INT) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL; // Disabled anyway; let the level check reject it
+        }
+        return ThreadLocalRandom.current().nextInt(sampleRate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
@@ -1,5 +1,7 @@
 package com.signup.config;
 
+import com.signup.exception.DatabaseUnavailableException;
+import com.signup.exception.GlobalExceptionHandler;
 import com.signup.service.AuthService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -22,37 +24,51 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private AuthService authService;
 
+    // Public routes need no authentication, so their tokens are not even looked at
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return SecurityConfig.access(request) == RouteTable.Access.PUBLIC;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
-        String token = extractToken(request);
+        String token = extractToken(request, SecurityConfig.access(request) == RouteTable.Access.QUERY_TOKEN);
         
-        if (token != null && authService.validateToken(token)) {
-            String userEmail = authService.getUserEmailFromToken(token);
-            if (userEmail != null) {
-                UserDetails userDetails = User.builder()
-                    .username(userEmail)
-                    .password("")
-                    .authorities(new ArrayList<>())
-                    .build();
-                
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+        String userEmail;
+        try {
+            userEmail = token != null && authService.validateToken(token) ? authService.getUserEmailFromToken(token) : null;
+        } catch (DatabaseUnavailableException e) {
+            // The token's epoch could not be checked; a 403 would wrongly tell the client to sign in again
+            GlobalExceptionHandler.writeDatabaseUnavailable(response);
+            return;
+        }
+        if (userEmail != null) {
+            UserDetails userDetails = User.builder()
+                .username(userEmail)
+                .password("")
+                .authorities(new ArrayList<>())
+                .build();
+            
+            UsernamePasswordAuthenticationToken authentication = 
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            
+            SecurityContextHolder.getContext().setAuthentication(authentication);
         }
         
         filterChain.doFilter(request, response);
     }
 
-    private String extractToken(HttpServletRequest request) {
+    private String extractToken(HttpServletRequest request, boolean queryTokenAllowed) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
         }
-        
+        if (!queryTokenAllowed) {
+            return null; // Reading parameters could make the container parse the query string and form body
+        }
+
         // Also check query parameter for token
         String queryToken = request.getParameter("token");
         if (queryToken != null && !queryToken.isEmpty()) {
@@ -0,0 +1,61 @@
+package com.signup.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reflection and resource metadata for the native image (mvn -Pnative).
+ *
+ * Spring's AOT pass covers beans and controller DTOs, and the GraalVM
+ * reachability metadata repository covers H2 and the MySQL driver. What is
+ * left is code that looks classes up by name: jjwt's implementation classes
+ * and service files, and the classes logback-spring.xml instantiates.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHints.Registrar.class)
+public class NativeHints {
+
+    // Loaded by name from jjwt-api (Jwts, Keys) or through ServiceLoader
+    private static final String[] JJWT_CLASSES = {
+        "io.jsonwebtoken.impl.DefaultClaims",
+        "io.jsonwebtoken.impl.DefaultHeader",
+        "io.jsonwebtoken.impl.DefaultJwsHeader",
+        "io.jsonwebtoken.impl.DefaultJwtBuilder",
+        "io.jsonwebtoken.impl.DefaultJwtParser",
+        "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+        "io.jsonwebtoken.impl.crypto.EllipticCurveProvider",
+        "io.jsonwebtoken.impl.crypto.MacProvider",
+        "io.jsonwebtoken.impl.crypto.RsaProvider",
+        "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+        "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+        "io.jsonwebtoken.jackson.io.JacksonSerializer",
+        "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    };
+
+    static class Registrar implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String className : JJWT_CLASSES) {
+                hints.reflection().registerType(TypeReference.of(className),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+            // Joran creates these from logback-spring.xml and calls their setters
+            for (Class<?> type : new Class<?>[] {DebugSamplingFilter.class, JsonLogLayout.class,
+                    AsyncAppender.class, ConsoleAppender.class, LayoutWrappingEncoder.class}) {
+                hints.reflection().registerType(type,
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("logback-spring.xml");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.signup.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.signup.dto.AuthResponse;
+import com.signup.dto.IntrospectResponse;
+import com.signup.dto.LogoutResponse;
+import com.signup.dto.ProfileResponse;
+import com.signup.dto.SignupResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the auth response DTOs without going through ObjectMapper.
+ *
+ * Responses that carry only a fixed message (every failure, and the signup
+ * and logout confirmations) are encoded once and then served from a byte[]
+ * memo. AuthResponse and ProfileResponse with tokens or a user, and
+ * introspection results, are streamed field by field. The output is byte-for-byte what Jackson produced before:
+ * same field order, nulls included.
+ */
+public class ResponseJsonConverter extends AbstractHttpMessageConverter<Object> {
+
+    // Leaves the servlet stream open; Spring flushes it after writeInternal
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    // Messages are string literals, so this stays small; the cap guards against that changing
+    private static final int MAX_CONSTANT_BODIES = 256;
+
+    private final Map<ConstantKey, byte[]> constantBodies = new ConcurrentHashMap<>();
+
+    private record ConstantKey(Class<?> type, boolean success, String message) {}
+
+    public ResponseJsonConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Encode a {"success":...,"message":...} body once, for writers outside
+     * Spring MVC such as the security entry point
+     * @param success value of the success field
+     * @param message value of the message field
+     * @return UTF-8 JSON bytes
+     */
+    public static byte[] encodeStatus(boolean success, String message) {
+        return encode(new LogoutResponse(success, message));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == AuthResponse.class || clazz == ProfileResponse.class
+                || clazz == SignupResponse.class || clazz == LogoutResponse.class
+                || clazz == IntrospectResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false; // Request bodies stay with Jackson and bean validation
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Write-only converter", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(Object body, MediaType contentType) {
+        byte[] constant = constantBody(body);
+        return constant != null ? (long) constant.length : null;
+    }
+
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+        byte[] constant = constantBody(body);
+        if (constant != null) {
+            outputMessage.getBody().write(constant);
+            return;
+        }
+        write(body, outputMessage.getBody());
+    }
+
+    // Pre-encoded bytes for a body that is nothing but success and message, else null
+    private byte[] constantBody(Object body) {
+        ConstantKey key;
+        if (body instanceof AuthResponse auth) {
+            if (auth.getToken() != null || auth.getRefreshToken() != null || auth.getUser() != null) {
+                return null;
+            }
+            key = new ConstantKey(AuthResponse.class, auth.isSuccess(), auth.getMessage());
+        } else if (body instanceof ProfileResponse profile) {
+            if (profile.getUser() != null) {
+                return null;
+            }
+            key = new ConstantKey(ProfileResponse.class, profile.isSuccess(), profile.getMessage());
+        } else if (body instanceof LogoutResponse logout) {
+            key = new ConstantKey(LogoutResponse.class, logout.isSuccess(), logout.getMessage());
+        } else if (body instanceof SignupResponse signup) {
+            key = new ConstantKey(SignupResponse.class, false, signup.getMessage());
+        } else {
+            return null;
+        }
+
+        byte[] bytes = constantBodies.get(key);
+        if (bytes == null) {
+            bytes = encode(body);
+            if (constantBodies.size() < MAX_CONSTANT_BODIES) {
+                constantBodies.putIfAbsent(key, bytes);
+            }
+        }
+        return bytes;
+    }
+
+    private static byte[] encode(Object body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        try {
+            write(body, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by an in-memory stream
+        }
+        return out.toByteArray();
+    }
+
+    private static void write(Object body, OutputStream out) throws IOException {
+        try (JsonGenerator json = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            if (body instanceof AuthResponse auth) {
+                writeAuth(json, auth);
+            } else if (body instanceof ProfileResponse profile) {
+                writeProfile(json, profile);
+            } else if (body instanceof IntrospectResponse introspection) {
+                writeIntrospection(json, introspection);
+            } else if (body instanceof LogoutResponse logout) {
+                json.writeBooleanField("success", logout.isSuccess());
+                json.writeStringField("message", logout.getMessage());
+            } else {
+                json.writeStringField("message", ((SignupResponse) body).getMessage());
+            }
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeAuth(JsonGenerator json, AuthResponse auth) throws IOException {
+        json.writeBooleanField("success", auth.isSuccess());
+        json.writeStringField("message", auth.getMessage());
+        json.writeStringField("token", auth.getToken());
+        json.writeStringField("refreshToken", auth.getRefreshToken());
+        AuthResponse.UserInfo user = auth.getUser();
+        if (user == null) {
+            json.writeNullField("user");
+            return;
+        }
+        json.writeObjectFieldStart("user");
+        json.writeStringField("userEmail", user.getUserEmail());
+        json.writeStringField("userName", user.getUserName());
+        json.writeEndObject();
+    }
+
+    private static void writeIntrospection(JsonGenerator json, IntrospectResponse introspection) throws IOException {
+        if (introspection.getResults() == null) {
+            json.writeNullField("results");
+            return;
+        }
+        json.writeArrayFieldStart("results");
+        for (IntrospectResponse.TokenStatus status : introspection.getResults()) {
+            json.writeStartObject();
+            json.writeBooleanField("active", status.isActive());
+            json.writeStringField("subject", status.getSubject());
+            if (status.getExp() == null) {
+                json.writeNullField("exp");
+            } else {
+                json.writeNumberField("exp", status.getExp());
+            }
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    private static void writeProfile(JsonGenerator json, ProfileResponse profile) throws IOException {
+        json.writeBooleanField("success", profile.isSuccess());
+        json.writeStringField("message", profile.getMessage());
+        ProfileResponse.UserProfile user = profile.getUser();
+        if (user == null) {
+            json.writeNullField("user");
+            return;
+        }
+        json.writeObjectFieldStart("user");
+        if (user.getId() == null) {
+            json.writeNullField("id");
+        } else {
+            json.writeNumberField("id", user.getId());
+        }
+        json.writeStringField("name", user.getName());
+        json.writeStringField("contactNumber", user.getContactNumber());
+        json.writeStringField("email", user.getEmail());
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,133 @@
+package com.signup.config;
+
+import java.util.Arrays;
+
+/**
+ * Path trie mapping request paths to a value, such as how
+ * JwtAuthenticationFilter treats a request.
+ *
+ * Patterns are literal paths, optionally ending in "/**", which matches the
+ * path itself and everything below it (as in Spring Security). Lookups walk
+ * the request URI in place and allocate nothing. Paths with no matching
+ * pattern get the table's default value.
+ */
+public class RouteTable<V> {
+
+    public enum Access {
+        PUBLIC,       // permitAll: no token work at all
+        QUERY_TOKEN,  // Token from the Authorization header or the "token" query parameter
+        HEADER_TOKEN  // Token from the Authorization header only
+    }
+
+    private static final class Node<V> {
+        String[] segments = new String[0];
+        Node<V>[] children = newNodes(0);
+        V exact;   // Pattern ends here
+        V subtree; // Pattern ends here with "/**"
+
+        Node<V> child(String segment, boolean create) {
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].equals(segment)) {
+                    return children[i];
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            segments[segments.length - 1] = segment;
+            return children[children.length - 1] = new Node<>();
+        }
+
+        @SuppressWarnings("unchecked")
+        static <V> Node<V>[] newNodes(int length) {
+            return (Node<V>[]) new Node<?>[length];
+        }
+    }
+
+    private final Node<V> root = new Node<>();
+    private final V defaultValue;
+
+    /**
+     * @param defaultValue value for paths no pattern matches, may be null
+     */
+    public RouteTable(V defaultValue) {
+        this.defaultValue = defaultValue;
+    }
+
+    /**
+     * @param value value for every pattern
+     * @param patterns paths such as "/api/auth/login" or "/swagger-ui/**"
+     * @return this table
+     */
+    public RouteTable<V> add(V value, String... patterns) {
+        for (String pattern : patterns) {
+            if (!pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Route must start with '/': " + pattern);
+            }
+            boolean subtree = pattern.endsWith("/**");
+            String path = subtree ? pattern.substring(0, pattern.length() - 3) : pattern;
+            if (path.contains("*")) {
+                throw new IllegalArgumentException("Only a trailing /** is supported: " + pattern);
+            }
+            Node<V> node = root;
+            if (!path.isEmpty()) {
+                for (String segment : path.substring(1).split("/", -1)) {
+                    node = node.child(segment, true);
+                }
+            }
+            if (subtree) {
+                node.subtree = value;
+            } else {
+                node.exact = value;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param uri request URI, query string excluded
+     * @param from index where the path starts (the context path length)
+     * @return value of the most specific matching pattern
+     */
+    public V lookup(String uri, int from) {
+        if (from >= uri.length() || uri.charAt(from) != '/') {
+            return defaultValue;
+        }
+        Node<V> node = root;
+        V wildcard = root.subtree;
+        int start = from + 1;
+        while (true) {
+            int end = uri.indexOf('/', start);
+            if (end < 0) {
+                end = uri.length();
+            }
+            node = find(node, uri, start, end - start);
+            if (node == null) {
+                break;
+            }
+            if (end == uri.length()) {
+                // "/x/**" also matches "/x" itself
+                V value = node.exact != null ? node.exact : node.subtree;
+                return value != null ? value : wildcard != null ? wildcard : defaultValue;
+            }
+            if (node.subtree != null) {
+                wildcard = node.subtree;
+            }
+            start = end + 1;
+        }
+        return wildcard != null ? wildcard : defaultValue;
+    }
+
+    private static <V> Node<V> find(Node<V> node, String uri, int start, int length) {
+        String[] segments = node.segments;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.length() == length && uri.regionMatches(start, segment, 0, length)) {
+                return node.children[i];
+            }
+        }
+        return null;
+    }
+}
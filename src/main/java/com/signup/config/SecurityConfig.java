@@ -1,18 +1,56 @@
 package com.signup.config;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.io.IOException;
+import java.util.List;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // Written straight to the response for unauthenticated requests, instead of
+    // dispatching to /error and serializing Boot's error map every time
+    private static final byte[] TOKEN_REQUIRED =
+            ResponseJsonConverter.encodeStatus(false, "You are not an authenticated user. Token is required.");
+    private static final byte[] TOKEN_INVALID =
+            ResponseJsonConverter.encodeStatus(false, "You are not an authenticated user. Invalid or expired token.");
+
+    // Open to everyone; JwtAuthenticationFilter skips these without looking for a token
+    static final String[] PUBLIC_ROUTES = {
+        // H2 console
+        "/h2-console/**",
+        // Swagger UI and related endpoints
+        "/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/api-docs/**",
+        // Public auth endpoints
+        "/api/auth/signup", "/api/auth/login", "/api/auth/users",
+        // Token introspection and revocation events for gateways, user lookup for internal services;
+        // no user token, but each requires its API key and is refused while none is configured
+        "/api/auth/introspect", "/api/auth/revocations", "/api/auth/users/lookup",
+        // Favicon, error and readiness endpoints
+        "/favicon.ico", "/error", "/health/readiness",
+        // Verification keys for downstream services
+        "/.well-known/jwks.json"
+    };
+
+    // The only routes that accept a token in the "token" query parameter; elsewhere it must be in the header
+    static final String[] QUERY_TOKEN_ROUTES = {"/api/auth/profile", "/api/auth/logout"};
+
+    static final RouteTable<RouteTable.Access> ROUTES = new RouteTable<>(RouteTable.Access.HEADER_TOKEN)
+            .add(RouteTable.Access.PUBLIC, PUBLIC_ROUTES)
+            .add(RouteTable.Access.QUERY_TOKEN, QUERY_TOKEN_ROUTES);
+
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -22,18 +60,14 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable()) // Disable CSRF for API endpoints
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(authz -> authz
-                // Allow access to H2 console FIRST
-                .requestMatchers("/h2-console/**").permitAll()
-                // Allow access to Swagger UI and related endpoints
-                .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/api-docs/**").permitAll()
-                // Allow access to public auth endpoints
-//                .requestMatchers("/api/auth/signup", "/api/auth/login", "/api/auth/refresh", "/api/auth/forgot-password", "/api/auth/reset-password", "/api/auth/test-public", "/api/auth/users").permitAll()
-                // Allow favicon and error endpoints
-                            .requestMatchers("/api/auth/signup", "/api/auth/login", "/api/auth/users").permitAll()
-                .requestMatchers("/favicon.ico", "/error").permitAll()
+                .requestMatchers(PUBLIC_ROUTES).permitAll()
                 // Require authentication for all other endpoints
                 .anyRequest().authenticated()
             )
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint((request, response, e) -> writeForbidden(request, response))
+                .accessDeniedHandler((request, response, e) -> writeForbidden(request, response))
+            )
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
@@ -46,6 +80,34 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // How JwtAuthenticationFilter treats the request's path
+    static RouteTable.Access access(HttpServletRequest request) {
+        return ROUTES.lookup(request.getRequestURI(), request.getContextPath().length());
+    }
+
+    // Same 403 status as before; only the body changed
+    static void writeForbidden(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // The token parameter only counts where the filter reads it, and reading it can parse the whole body
+        boolean hasToken = request.getHeader("Authorization") != null
+                || (access(request) == RouteTable.Access.QUERY_TOKEN && request.getParameter("token") != null);
+        byte[] body = hasToken ? TOKEN_INVALID : TOKEN_REQUIRED;
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // Serve the auth DTOs from pre-encoded bytes and streaming writers ahead of Jackson
+    @Bean
+    public org.springframework.web.servlet.config.annotation.WebMvcConfigurer responseConverters() {
+        return new org.springframework.web.servlet.config.annotation.WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.add(0, new ResponseJsonConverter());
+            }
+        };
+    }
+
     // Add CORS configuration to allow all origins and methods
     @Bean
     public org.springframework.web.servlet.config.annotation.WebMvcConfigurer corsConfigurer() {
@@ -1,24 +1,39 @@
 package com.signup.controller;
 
 import com.signup.dto.AuthResponse;
+import com.signup.dto.IntrospectRequest;
+import com.signup.dto.IntrospectResponse;
 import com.signup.dto.LoginRequest;
 import com.signup.dto.SignupRequest;
 import com.signup.dto.ProfileResponse;
 import com.signup.dto.LogoutResponse;
 import com.signup.dto.RefreshTokenRequest;
+import com.signup.dto.UserLookupRequest;
+import com.signup.dto.UserLookupResponse;
+import com.signup.model.ProfileVersion;
+import com.signup.model.User;
 import com.signup.service.AuthService;
+import com.signup.util.ApiKeyUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag; 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import com.signup.dto.SignupResponse;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
 @RestController
 @RequestMapping("/api/auth")
 @Tag(name = "Authentication", description = "Authentication APIs")
@@ -28,10 +43,19 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
-    @Autowired
-    private com.signup.database.DatabaseService databaseService;
+    // Shared secret gateways send as X-Introspection-Key; introspection is refused (403) until one is set
+    @Value("${auth.introspection.api-key:}")
+    private String introspectionApiKey;
+
+    // Shared secret internal services send as X-User-Lookup-Key; user lookup is refused (403) until one is set
+    @Value("${auth.user-lookup.api-key:}")
+    private String userLookupApiKey;
 
     @PostMapping("/signup")
+    @Operation(
+        summary = "User signup",
+        description = "Register a new user. Fails with 400 if the email (in any case) or the contact number is already registered."
+    )
     public ResponseEntity<SignupResponse> signup(@Valid @RequestBody SignupRequest signupRequest) {
     boolean registered = authService.signup(signupRequest);
     if (registered) {
@@ -139,6 +163,49 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/introspect")
+    @Operation(
+        summary = "Introspect tokens",
+        description = "Check up to 100 access tokens at once. Each result says whether the token is active and, if so, "
+            + "its user and expiry (exp, seconds since the epoch) so callers can cache the answer until then."
+    )
+    public ResponseEntity<IntrospectResponse> introspect(
+        @Valid @RequestBody IntrospectRequest introspectRequest,
+        @RequestHeader(value = "X-Introspection-Key", required = false) String apiKey) {
+        if (!ApiKeyUtil.matches(introspectionApiKey, apiKey)) {
+            return ResponseEntity.status(introspectionApiKey.isBlank() ? 403 : 401).build();
+        }
+        return ResponseEntity.ok(new IntrospectResponse(authService.introspect(introspectRequest.getTokens())));
+    }
+
+    @PostMapping("/users/lookup")
+    @Operation(
+        summary = "Look up users",
+        description = "Resolve up to 500 user ids and 500 emails at once, for internal services that list users. "
+            + "Results hold the users for the ids, then for the emails, in request order; null where there is no such user."
+    )
+    public ResponseEntity<UserLookupResponse> lookupUsers(
+        @Valid @RequestBody UserLookupRequest lookupRequest,
+        @RequestHeader(value = "X-User-Lookup-Key", required = false) String apiKey) {
+        if (!ApiKeyUtil.matches(userLookupApiKey, apiKey)) {
+            return ResponseEntity.status(userLookupApiKey.isBlank() ? 403 : 401).build();
+        }
+        List<Long> ids = lookupRequest.getIds() != null ? lookupRequest.getIds() : List.of();
+        List<String> emails = lookupRequest.getEmails() != null ? lookupRequest.getEmails() : List.of();
+        if (ids.isEmpty() && emails.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<ProfileResponse.UserProfile> users = new ArrayList<>(ids.size() + emails.size());
+        authService.lookupUsers(ids, emails).forEach(user -> users.add(toProfile(user)));
+        return ResponseEntity.ok(new UserLookupResponse(users));
+    }
+
+    private static ProfileResponse.UserProfile toProfile(User user) {
+        return user == null ? null
+            : new ProfileResponse.UserProfile(user.getId(), user.getName(), user.getContactNumber(), user.getEmail());
+    }
+
     @GetMapping("/profile")
     @Operation(
         summary = "Get user profile",
@@ -155,7 +222,9 @@ public class AuthController {
     @SecurityRequirement(name = "Bearer Authentication")
     public ResponseEntity<ProfileResponse> getProfile(
         @RequestParam(value = "token", required = false) String queryToken,
-        HttpServletRequest request) {
+        HttpServletRequest request,
+        HttpServletResponse response,
+        WebRequest webRequest) {
         String token = queryToken;
         if (token != null && token.startsWith("Bearer ")) {
             token = token.substring(7);
@@ -186,17 +255,27 @@ public class AuthController {
                 .body(new ProfileResponse(false, "You are not an authenticated user. Unable to extract user information from token.", null));
         }
         
-        // Get user profile from database
-        return databaseService.findUserByEmail(userEmail)
-            .map(user -> {
-                ProfileResponse.UserProfile profile = new ProfileResponse.UserProfile(
-                    user.getId(),
-                    user.getName(),
-                    user.getContactNumber(),
-                    user.getEmail()
-                );
-                return ResponseEntity.ok(new ProfileResponse(true, "Profile fetched successfully", profile));
-            })
+        // Clients may keep the profile but must revalidate it; responses differ per token
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+
+        // A conditional request for an unchanged profile gets 304 from the profile version alone,
+        // without reading or serializing the row
+        boolean conditional = request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+            || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+        ProfileVersion known = conditional ? authService.getProfileVersion(userEmail) : null;
+        if (known != null && webRequest.checkNotModified(known.etag(), known.updatedAtMillis())) {
+            return null;
+        }
+
+        // Get user profile from database, or the last-known profile while it is unavailable
+        Optional<User> found = authService.getProfile(userEmail);
+        if (known == null && found.isPresent()) {
+            ProfileVersion version = ProfileVersion.of(found.get());
+            webRequest.checkNotModified(version.etag(), version.updatedAtMillis()); // Sets ETag and Last-Modified
+        }
+        return found
+            .map(user -> ResponseEntity.ok(new ProfileResponse(true, "Profile fetched successfully", toProfile(user))))
             .orElseGet(() -> ResponseEntity.status(404)
                 .body(new ProfileResponse(false, "User profile not found in database", null)));
     }
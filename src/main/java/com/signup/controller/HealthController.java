@@ -0,0 +1,37 @@
+package com.signup.controller;
+
+import com.signup.config.ResponseJsonConverter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "Health", description = "Probes for load balancers and orchestrators")
+public class HealthController {
+
+    private static final byte[] READY = ResponseJsonConverter.encodeStatus(true, "Ready");
+    private static final byte[] NOT_READY = ResponseJsonConverter.encodeStatus(false, "Starting");
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @GetMapping("/health/readiness")
+    @Operation(
+        summary = "Readiness probe",
+        description = "200 once startup, including JIT warm-up, has finished and the instance accepts traffic; 503 before."
+    )
+    public ResponseEntity<byte[]> readiness() {
+        boolean ready = availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC;
+        return ResponseEntity.status(ready ? 200 : 503)
+            .cacheControl(CacheControl.noStore())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(ready ? READY : NOT_READY);
+    }
+}
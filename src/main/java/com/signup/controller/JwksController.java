@@ -0,0 +1,32 @@
+package com.signup.controller;
+
+import com.signup.util.EcKeySet;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@Tag(name = "Keys", description = "Public keys for offline token verification")
+public class JwksController {
+
+    @Autowired
+    private EcKeySet ecKeySet;
+
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(
+        summary = "JSON Web Key Set",
+        description = "Public keys that verify ES256 tokens. Empty while tokens are signed with HS256."
+    )
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+            .body(ecKeySet.jwks());
+    }
+}
@@ -0,0 +1,47 @@
+package com.signup.controller;
+
+import com.signup.service.RevocationFeed;
+import com.signup.util.ApiKeyUtil;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@Tag(name = "Revocations", description = "Revocation events for caches that verify tokens offline")
+public class RevocationController {
+
+    @Autowired
+    private RevocationFeed revocationFeed;
+
+    // Shared secret subscribers send as X-Revocation-Feed-Key; the feed is refused (403) until one is set
+    @Value("${revocation-feed.api-key:}")
+    private String apiKey;
+
+    @GetMapping(value = "/api/auth/revocations", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Revocation event stream",
+        description = "Server-sent events: \"epoch\" revokes a subject's tokens below the given epoch, "
+            + "\"all\" revokes every token and \"reset\" means cached state must be dropped. "
+            + "Subjects are fingerprints of the user's email. Sequences are per instance: resume with the "
+            + "Last-Event-ID header or the after parameter on the instance that issued it."
+    )
+    public ResponseEntity<SseEmitter> revocations(
+        @RequestHeader(value = "X-Revocation-Feed-Key", required = false) String key,
+        @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+        @RequestParam(value = "after", required = false) Long after) {
+        if (!ApiKeyUtil.matches(apiKey, key)) {
+            return ResponseEntity.status(apiKey.isBlank() ? 403 : 401).build();
+        }
+        return ResponseEntity.ok()
+            .header("X-Accel-Buffering", "no") // Keep nginx from holding events back
+            .body(revocationFeed.subscribe(lastEventId != null ? lastEventId : after));
+    }
+}
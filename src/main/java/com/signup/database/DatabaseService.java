@@ -1,152 +1,1156 @@
 package com.signup.database;
 
+import com.signup.exception.DatabaseUnavailableException;
+import com.signup.exception.DatabaseUnavailableException.Reason;
+import com.signup.model.ProfileVersion;
 import com.signup.model.User;
+import com.signup.util.CircuitBreaker;
+import com.signup.util.EmailUtil;
+import com.signup.util.LongHashSet;
+import com.signup.util.SingleFlight;
+import com.signup.util.SnowflakeIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 @Service
+@Lazy(false) // Owns a @Scheduled task, which lazy initialization would never start
 public class DatabaseService {
 
+    private static final Logger log = LoggerFactory.getLogger(DatabaseService.class);
+
+    @Autowired
+    private ReadWriteRouter router;
+
+    @Autowired
+    private UserShards shards;
+
     @Autowired
-    private DataSource dataSource;
+    private SnowflakeIdGenerator idGenerator;
+
+    // Ids are assigned before insert, so no generated-keys round trip is needed
+    private static final String INSERT_USER_SQL = """
+        INSERT INTO users (id, name, contact_number, email, password, created_at, updated_at, email_hash)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    // Emails are found through the narrow hash index, then the full value is confirmed
+    private static final String EMAIL_MATCH = "email_hash = ? AND LOWER(email) = ?";
+
+    // Write-behind: group validated signups into one multi-row transaction
+    @Value("${signup.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
+
+    @Value("${signup.write-behind.queue-capacity:10000}")
+    private int writeBehindCapacity;
+
+    @Value("${signup.write-behind.max-batch-size:200}")
+    private int writeBehindMaxBatch;
+
+    @Value("${signup.write-behind.flush-interval-ms:5}")
+    private long writeBehindFlushInterval;
+
+    @Value("${signup.write-behind.wait-timeout-ms:5000}")
+    private long writeBehindWaitTimeout;
+
+    private SignupWriteBehindQueue writeBehindQueue;
+
+    // Every registered contact number, so duplicate checks skip the database
+    @Value("${signup.contact-registry.enabled:true}")
+    private boolean contactRegistryEnabled;
+
+    // The registry only sees this instance's inserts, so a miss is confirmed in SQL unless this is the only writer
+    @Value("${signup.contact-registry.trust-misses:false}")
+    private boolean contactRegistryTrustsMisses;
+
+    private final LongHashSet contactNumbers = new LongHashSet(1024);
+    private volatile boolean contactNumbersLoaded;
+
+    // Set once initializeDatabase() has checked every shard's table
+    private volatile boolean schemaReady;
+
+    // Single-flight: concurrent lookups of the same user share one query
+    @Value("${single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+
+    // A caller waits this long for a shared query before running its own
+    @Value("${single-flight.wait-timeout-ms:1000}")
+    private long singleFlightWaitTimeout;
+
+    private SingleFlight<String, Optional<User>> userLookups;
+    private SingleFlight<String, Long> epochLookups;
+    private SingleFlight<Long, String> emailLookups;
+    private long reportedLookups; // Calls seen by the last single-flight report
+
+    // Statement timeout for request-path queries; a slow database then fails the request instead of holding its thread
+    @Value("${database.query-timeout-seconds:2}")
+    private int queryTimeoutSeconds;
+
+    // Consecutive failures after which a shard's calls fail fast, and for how long
+    @Value("${database.circuit-breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${database.circuit-breaker.open-ms:5000}")
+    private long breakerOpenMillis;
+
+    // Users whose last-read row is kept for profile reads while the database is unavailable; 0 disables
+    @Value("${database.last-known-users:10000}")
+    private int lastKnownCapacity;
+
+    // Profile versions kept for conditional profile requests, and how long one is trusted before updated_at is re-read
+    @Value("${profile.version-cache.size:100000}")
+    private int versionCacheSize;
+
+    // Also how long a last-known user counts as current for multi-get lookups
+    @Value("${profile.version-cache.ttl-ms:30000}")
+    private long versionCacheTtlMillis;
+
+    // Keys per IN (...) query in multi-get lookups
+    @Value("${database.multi-get.chunk-size:100}")
+    private int multiGetChunkSize;
+
+    private CircuitBreaker[] breakers; // One per shard
+    private Map<String, KnownUser> lastKnownUsers;
+    private Map<Long, String> lastKnownEmails; // User id -> key in lastKnownUsers
+    private Map<String, CachedVersion> profileVersions;
+
+    private record KnownUser(User user, long readAt) {
+    }
+
+    private record CachedVersion(ProfileVersion version, long checkedAt) {
+    }
+
+    /**
+     * Token epochs changed on any shard since the previous poll
+     * @param epochs new epochs by normalized email
+     * @param watermarks per-shard watermarks to pass to the next poll
+     * @param cursors per-shard positions to resume from in the next poll; null (or a null entry) where
+     *        every change up to the watermark was read
+     */
+    public record EpochChanges(Map<String, Long> epochs, long[] watermarks, EpochCursor[] cursors) {
+    }
+
+    /**
+     * Last row read from a shard whose changes did not fit in one poll
+     * @param changedAt epoch_changed_at of that row
+     * @param id id of that row, which orders rows changed at the same time
+     * @param latest newest epoch_changed_at seen so far (epoch milliseconds), the shard's next watermark
+     */
+    public record EpochCursor(Timestamp changedAt, long id, long latest) {
+    }
+
+    @FunctionalInterface
+    private interface SqlCall<T> {
+        T run() throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SqlRead<T> {
+        T run(DataSource source) throws SQLException;
+    }
+
+    @PostConstruct
+    void init() {
+        breakers = new CircuitBreaker[shards.count()];
+        for (int shard = 0; shard < breakers.length; shard++) {
+            breakers[shard] = new CircuitBreaker("database shard " + shard, breakerFailureThreshold, breakerOpenMillis);
+        }
+        if (lastKnownCapacity > 0) {
+            lastKnownUsers = lruMap(lastKnownCapacity);
+            lastKnownEmails = lruMap(lastKnownCapacity);
+        }
+        if (versionCacheSize > 0) {
+            profileVersions = lruMap(versionCacheSize);
+        }
+        if (writeBehindEnabled) {
+            writeBehindQueue = new SignupWriteBehindQueue(writeBehindCapacity, writeBehindMaxBatch,
+                    writeBehindFlushInterval, this::insertBatch);
+        }
+        if (singleFlightEnabled) {
+            userLookups = new SingleFlight<>(singleFlightWaitTimeout);
+            epochLookups = new SingleFlight<>(singleFlightWaitTimeout);
+            emailLookups = new SingleFlight<>(singleFlightWaitTimeout);
+        }
+    }
+
+    @PreDestroy
+    void stopWriteBehind() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.shutdown();
+        }
+    }
+
+    /**
+     * @return true once the users table has been created or upgraded on every shard
+     */
+    public boolean isSchemaReady() {
+        return schemaReady;
+    }
 
     // Initialize database table
     public void initializeDatabase() {
         String createTableSQL = """
             CREATE TABLE IF NOT EXISTS users (
-                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                id BIGINT PRIMARY KEY,
                 name VARCHAR(50) NOT NULL,
                 contact_number VARCHAR(10) NOT NULL,
                 email VARCHAR(255) NOT NULL UNIQUE,
                 password VARCHAR(255) NOT NULL,
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                token_epoch BIGINT NOT NULL DEFAULT 0,
+                email_hash BINARY(16),
+                epoch_changed_at TIMESTAMP NULL
             )
             """;
 
-        try (Connection connection = dataSource.getConnection();
-             Statement statement = connection.createStatement()) {
-            statement.execute(createTableSQL);
-            System.out.println("Database table initialized successfully");
+        long highestId = 0;
+        try {
+            for (DataSource shard : shards.allForWrite()) {
+                try (Connection connection = shard.getConnection();
+                     Statement statement = connection.createStatement()) {
+                    statement.execute(createTableSQL);
+                    addColumnIfMissing(statement, "ALTER TABLE users ADD COLUMN token_epoch BIGINT NOT NULL DEFAULT 0");
+                    addColumnIfMissing(statement, "ALTER TABLE users ADD COLUMN email_hash BINARY(16)");
+                    createIndexIfMissing(statement, "CREATE INDEX idx_users_email_hash ON users (email_hash)");
+                    addColumnIfMissing(statement, "ALTER TABLE users ADD COLUMN epoch_changed_at TIMESTAMP NULL");
+                    createIndexIfMissing(statement, "CREATE INDEX idx_users_epoch_changed_at ON users (epoch_changed_at)");
+                    createIndexIfMissing(statement, "CREATE INDEX idx_users_contact_number ON users (contact_number)");
+                    backfillEmailHashes(connection);
+                    try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM users")) {
+                        resultSet.next();
+                        highestId = Math.max(highestId, resultSet.getLong(1));
+                    }
+                }
+            }
+            idGenerator.advancePast(highestId);
+            schemaReady = true;
+            log.info("Database table initialized successfully");
+            if (contactRegistryEnabled) {
+                loadContactNumbers();
+            }
         } catch (SQLException e) {
-            System.err.println("Error initializing database: " + e.getMessage());
+            log.error("Error initializing database: {}", e.getMessage());
         }
     }
 
-    // Save user to database
-    public boolean saveUser(User user) {
-        String insertSQL = """
-            INSERT INTO users (name, contact_number, email, password, created_at, updated_at)
-            VALUES (?, ?, ?, ?, ?, ?)
-            """;
+    // Upgrade tables created before a column existed; fails harmlessly when it is already there
+    private void addColumnIfMissing(Statement statement, String alterSQL) {
+        try {
+            statement.execute(alterSQL);
+        } catch (SQLException ignored) {
+            // Column already present
+        }
+    }
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(insertSQL, Statement.RETURN_GENERATED_KEYS)) {
-            
-            statement.setString(1, user.getName());
-            statement.setString(2, user.getContactNumber());
-            statement.setString(3, user.getEmail());
-            statement.setString(4, user.getPassword());
-            statement.setTimestamp(5, Timestamp.valueOf(user.getCreatedAt()));
-            statement.setTimestamp(6, Timestamp.valueOf(user.getUpdatedAt()));
-
-            int affectedRows = statement.executeUpdate();
-            
-            if (affectedRows > 0) {
-                ResultSet generatedKeys = statement.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    user.setId(generatedKeys.getLong(1));
-                }
-                System.out.println("✅ User saved successfully: " + user.getEmail() + " (ID: " + user.getId() + ")");
+    /**
+     * Create an index unless one of that name exists. Neither MySQL nor H2 in
+     * MySQL mode take CREATE INDEX IF NOT EXISTS, so "already exists" is the
+     * only error ignored; anything else is logged.
+     * @return false if the index could not be created
+     */
+    static boolean createIndexIfMissing(Statement statement, String createSQL) {
+        try {
+            statement.execute(createSQL);
+            return true;
+        } catch (SQLException e) {
+            if (isDuplicateIndex(e)) {
                 return true;
             }
+            log.error("Error creating index ({}): {}", createSQL, e.getMessage());
+            return false;
+        }
+    }
+
+    // MySQL reports ER_DUP_KEYNAME (1061), H2 reports SQLState 42S11
+    private static boolean isDuplicateIndex(SQLException e) {
+        return e.getErrorCode() == 1061 || "42S11".equals(e.getSQLState());
+    }
+
+    // Fill email_hash for rows written before the column existed
+    private void backfillEmailHashes(Connection connection) throws SQLException {
+        int filled = 0;
+        try (Statement select = connection.createStatement();
+             ResultSet resultSet = select.executeQuery("SELECT id, email FROM users WHERE email_hash IS NULL");
+             PreparedStatement update = connection.prepareStatement("UPDATE users SET email_hash = ? WHERE id = ?")) {
+            while (resultSet.next()) {
+                update.setBytes(1, EmailUtil.lookupHash(resultSet.getString(2)));
+                update.setLong(2, resultSet.getLong(1));
+                update.executeUpdate();
+                filled++;
+            }
+        }
+        if (filled > 0) {
+            log.info("Backfilled email_hash for {} user(s)", filled);
+        }
+    }
+
+    // Stream every shard's contact numbers into the in-memory registry
+    private void loadContactNumbers() throws SQLException {
+        long started = System.nanoTime();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            try (Connection connection = shards.forRead(shard, null).getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setFetchSize(10_000);
+                try (ResultSet resultSet = statement.executeQuery("SELECT contact_number FROM users")) {
+                    while (resultSet.next()) {
+                        registerContactNumber(resultSet.getString(1));
+                    }
+                }
+            }
+        }
+        contactNumbersLoaded = true;
+        log.info("Loaded {} contact numbers in {} ms ({} KB)", contactNumbers.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), contactNumbers.tableBytes() / 1024);
+    }
+
+    private void registerContactNumber(String contactNumber) {
+        long value = parseContactNumber(contactNumber);
+        if (value >= 0) {
+            contactNumbers.add(value);
+        }
+    }
+
+    // Exactly 10 digits map one-to-one onto a long; anything else gets -1 and is left to SQL
+    private static long parseContactNumber(String contactNumber) {
+        if (contactNumber == null || contactNumber.length() != 10) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < contactNumber.length(); i++) {
+            char c = contactNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Bookkeeping after a user row is committed
+    private void recordSaved(User user) {
+        router.recordWrite(user.getEmail());
+        if (profileVersions != null) {
+            profileVersions.remove(EmailUtil.normalize(user.getEmail())); // Versions come from the stored updated_at
+        }
+        if (userLookups != null) {
+            userLookups.forget(EmailUtil.normalize(user.getEmail())); // A lookup already in flight may have missed the row
+        }
+        if (contactRegistryEnabled) {
+            registerContactNumber(user.getContactNumber());
+        }
+    }
+
+    private static void bindEmailMatch(PreparedStatement statement, int index, String email) throws SQLException {
+        statement.setBytes(index, EmailUtil.lookupHash(email));
+        statement.setString(index + 1, EmailUtil.normalize(email));
+    }
+
+    // Run one call against a shard through its circuit breaker; a failure counts against the shard
+    // and surfaces as DatabaseUnavailableException, never as an empty or negative answer
+    private <T> T call(int shard, String operation, SqlCall<T> call) {
+        CircuitBreaker breaker = breakers[shard];
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.Permit.REFUSED) {
+            throw new DatabaseUnavailableException(operation, Reason.CIRCUIT_OPEN, null);
+        }
+        boolean succeeded = false;
+        try {
+            T result = call.run();
+            succeeded = true;
+            return result;
         } catch (SQLException e) {
-            System.err.println("Error saving user: " + e.getMessage());
+            log.error("Error {}: {}", operation, e.getMessage());
+            boolean timedOut = e instanceof SQLTimeoutException || e instanceof SQLTransientConnectionException;
+            throw new DatabaseUnavailableException(operation, timedOut ? Reason.TIMEOUT : Reason.ERROR, e);
+        } finally {
+            // Whatever was thrown, Errors included: a trial that never reports holds the half-open slot for good
+            if (succeeded) {
+                breaker.onSuccess(permit);
+            } else {
+                breaker.onFailure(permit);
+            }
+        }
+    }
+
+    // Single-key read on the shard's read DataSource. A replica's miss is read again on the primary:
+    // the row may have just been written through another instance, whose read-your-writes pin this one doesn't have
+    private <T> T readConfirmingMisses(int shard, String key, SqlRead<T> read, Predicate<T> isMiss) throws SQLException {
+        DataSource source = shards.forRead(shard, key);
+        T result = read.run(source);
+        DataSource primary = shards.forWrite(shard);
+        return source != primary && isMiss.test(result) ? read.run(primary) : result;
+    }
+
+    // Statement for request-path queries, bounded by the query timeout
+    private PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        statement.setQueryTimeout(queryTimeoutSeconds);
+        return statement;
+    }
+
+    // The row was refused (e.g. a duplicate email) while the database itself is fine
+    private static boolean isConstraintViolation(SQLException e) {
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            if (next instanceof SQLIntegrityConstraintViolationException
+                    || (next.getSQLState() != null && next.getSQLState().startsWith("23"))) {
+                return true;
+            }
         }
         return false;
     }
 
-    // Find user by email
+    // Save user to database
+    public boolean saveUser(User user) {
+        SignupWriteBehindQueue.PendingSignup pending = writeBehindQueue != null ? writeBehindQueue.offer(user) : null;
+        if (pending == null) {
+            return insertUser(user); // Write-behind disabled or queue full
+        }
+        try {
+            try {
+                pending.result.get(writeBehindWaitTimeout, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // A "failed" answer must mean the row will never appear, so either withdraw it
+                // or report what the transaction already under way does (bounded by the query timeout)
+                if (writeBehindQueue.withdraw(pending)) {
+                    log.error("Timed out waiting for queued signup, withdrawn: {}", user.getEmail());
+                    return false;
+                }
+                pending.result.get();
+            }
+            return true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DatabaseUnavailableException unavailable) {
+                throw unavailable;
+            }
+            log.error("Error saving user: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!writeBehindQueue.withdraw(pending)) {
+                return pending.result.handle((saved, failure) -> failure == null).join(); // Already being written
+            }
+        }
+        return false;
+    }
+
+    // Single-row insert in its own auto-commit transaction
+    private boolean insertUser(User user) {
+        SQLException refused = insertRow(shards.shardOf(user.getEmail()), user);
+        if (refused != null) {
+            log.error("Error saving user: {}", refused.getMessage());
+            return false;
+        }
+        recordSaved(user);
+        log.info("User saved successfully: {} (ID: {})", user.getEmail(), user.getId());
+        return true;
+    }
+
+    // Insert one row; null once committed, or the constraint violation that refused it
+    private SQLException insertRow(int shard, User user) {
+        return call(shard, "saving user", () -> {
+            try (Connection connection = shards.forWrite(shard).getConnection();
+                 PreparedStatement statement = prepare(connection, INSERT_USER_SQL)) {
+                bindUser(statement, user);
+                statement.executeUpdate();
+                return null;
+            } catch (SQLException e) {
+                if (isConstraintViolation(e)) {
+                    return e;
+                }
+                throw e;
+            }
+        });
+    }
+
+    // Split a group of queued signups by shard and insert each part in one transaction
+    private void insertBatch(List<SignupWriteBehindQueue.PendingSignup> batch) {
+        if (!shards.isSharded()) {
+            insertShardBatch(0, batch);
+            return;
+        }
+        Map<Integer, List<SignupWriteBehindQueue.PendingSignup>> byShard = new LinkedHashMap<>();
+        for (SignupWriteBehindQueue.PendingSignup pending : batch) {
+            byShard.computeIfAbsent(shards.shardOf(pending.user.getEmail()), shard -> new ArrayList<>()).add(pending);
+        }
+        byShard.forEach(this::insertShardBatch);
+    }
+
+    // Insert signups owned by one shard in one transaction; if a row is refused
+    // (e.g. a duplicate email) retry row by row so only the offender fails
+    private void insertShardBatch(int shard, List<SignupWriteBehindQueue.PendingSignup> batch) {
+        boolean committed;
+        try {
+            committed = call(shard, "saving queued signups", () -> {
+                try (Connection connection = shards.forWrite(shard).getConnection()) {
+                    connection.setAutoCommit(false);
+                    try (PreparedStatement statement = prepare(connection, INSERT_USER_SQL)) {
+                        for (SignupWriteBehindQueue.PendingSignup pending : batch) {
+                            bindUser(statement, pending.user);
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                        connection.commit();
+                        return true;
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        if (isConstraintViolation(e)) {
+                            log.debug("Signup batch failed ({}), retrying row by row", e.getMessage());
+                            return false;
+                        }
+                        throw e;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                }
+            });
+        } catch (DatabaseUnavailableException e) {
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+            return;
+        }
+        if (committed) {
+            batch.forEach(pending -> recordSaved(pending.user));
+            log.debug("Saved {} queued signups in one transaction", batch.size());
+            batch.forEach(pending -> pending.result.complete(pending.user));
+            return;
+        }
+
+        for (SignupWriteBehindQueue.PendingSignup pending : batch) {
+            try {
+                SQLException refused = insertRow(shard, pending.user);
+                if (refused != null) {
+                    pending.result.completeExceptionally(refused);
+                    continue;
+                }
+                recordSaved(pending.user);
+                pending.result.complete(pending.user);
+            } catch (DatabaseUnavailableException e) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Binds the row, assigning the id first (a retried batch keeps the ids it was given)
+    private void bindUser(PreparedStatement statement, User user) throws SQLException {
+        if (user.getId() == null) {
+            user.setId(idGenerator.nextId());
+        }
+        statement.setLong(1, user.getId());
+        statement.setString(2, user.getName());
+        statement.setString(3, user.getContactNumber());
+        statement.setString(4, user.getEmail());
+        statement.setString(5, user.getPassword());
+        statement.setTimestamp(6, Timestamp.valueOf(user.getCreatedAt()));
+        statement.setTimestamp(7, Timestamp.valueOf(user.getUpdatedAt()));
+        statement.setBytes(8, EmailUtil.lookupHash(user.getEmail()));
+    }
+
+    // Find user by email; the returned user may be shared with concurrent callers and must not be modified
     public Optional<User> findUserByEmail(String email) {
-        String selectSQL = "SELECT * FROM users WHERE email = ?";
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(selectSQL)) {
-            
-            statement.setString(1, email);
-            ResultSet resultSet = statement.executeQuery();
-            
-            if (resultSet.next()) {
-                return Optional.of(mapResultSetToUser(resultSet));
+        if (userLookups == null) {
+            return queryUserByEmail(email);
+        }
+        return userLookups.get(EmailUtil.normalize(email), () -> queryUserByEmail(email));
+    }
+
+    /**
+     * Find user by email, falling back to the last row read for that user while the database is unavailable.
+     * For display only: the fallback may be stale and carries no password.
+     * @param email user email
+     * @return user, possibly stale
+     */
+    public Optional<User> findUserByEmailOrLastKnown(String email) {
+        try {
+            return findUserByEmail(email);
+        } catch (DatabaseUnavailableException e) {
+            KnownUser lastKnown = lastKnownUsers != null ? lastKnownUsers.get(EmailUtil.normalize(email)) : null;
+            if (lastKnown == null) {
+                throw e;
+            }
+            log.debug("Serving last-known user for {}: {}", email, e.getMessage());
+            return Optional.of(lastKnown.user());
+        }
+    }
+
+    private Optional<User> queryUserByEmail(String email) {
+        String selectSQL = "SELECT * FROM users WHERE " + EMAIL_MATCH;
+        int shard = shards.shardOf(email);
+
+        Optional<User> user = call(shard, "finding user by email", () -> readConfirmingMisses(shard, email, source -> {
+            try (Connection connection = source.getConnection();
+                 PreparedStatement statement = prepare(connection, selectSQL)) {
+
+                bindEmailMatch(statement, 1, email);
+                ResultSet resultSet = statement.executeQuery();
+
+                return resultSet.next() ? Optional.of(mapResultSetToUser(resultSet)) : Optional.<User>empty();
+            }
+        }, Optional::isEmpty));
+        rememberUser(EmailUtil.normalize(email), user.orElse(null));
+        return user;
+    }
+
+    /**
+     * Find many users by email: current cached users first, then chunked IN (...) queries
+     * for the rest, on one connection per shard
+     * @param emails user emails, in any case
+     * @return users in request order, null where there is no such user; passwords are not included
+     */
+    public List<User> findUsersByEmail(List<String> emails) {
+        User[] users = new User[emails.size()];
+        Map<Integer, List<String>> missesByShard = new HashMap<>();
+        for (int i = 0; i < users.length; i++) {
+            String key = EmailUtil.normalize(emails.get(i));
+            users[i] = currentUser(key);
+            if (users[i] == null && key != null) {
+                missesByShard.computeIfAbsent(shards.shardOf(key), shard -> new ArrayList<>()).add(key);
+            }
+        }
+        if (missesByShard.isEmpty()) {
+            return Arrays.asList(users);
+        }
+
+        Map<String, User> found = new HashMap<>();
+        missesByShard.forEach((shard, keys) -> {
+            List<String> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+            call(shard, "finding users by email", () -> {
+                try (Connection connection = shards.forRead(shard, null).getConnection()) {
+                    for (int from = 0; from < distinct.size(); from += multiGetChunkSize) {
+                        List<String> chunk = distinct.subList(from, Math.min(distinct.size(), from + multiGetChunkSize));
+                        try (PreparedStatement statement = prepare(connection,
+                                "SELECT * FROM users WHERE email_hash IN (" + placeholders(chunk.size()) + ")")) {
+                            for (int i = 0; i < chunk.size(); i++) {
+                                statement.setBytes(i + 1, EmailUtil.lookupHash(chunk.get(i)));
+                            }
+                            ResultSet resultSet = statement.executeQuery();
+                            while (resultSet.next()) {
+                                User user = mapResultSetToUser(resultSet);
+                                found.put(EmailUtil.normalize(user.getEmail()), user); // Hash collisions fall out here
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+            distinct.forEach(key -> rememberUser(key, found.get(key)));
+        });
+
+        for (int i = 0; i < users.length; i++) {
+            if (users[i] == null) {
+                User user = found.get(EmailUtil.normalize(emails.get(i)));
+                users[i] = user != null ? withoutPassword(user) : null;
+            }
+        }
+        return Arrays.asList(users);
+    }
+
+    /**
+     * Find many users by id: current cached users first, then chunked IN (...) queries
+     * for the rest, on one connection per shard until all are found
+     * @param ids user ids
+     * @return users in request order, null where there is no such user; passwords are not included
+     */
+    public List<User> findUsersById(List<Long> ids) {
+        User[] users = new User[ids.size()];
+        Set<Long> misses = new LinkedHashSet<>();
+        for (int i = 0; i < users.length; i++) {
+            Long id = ids.get(i);
+            String key = id != null && lastKnownEmails != null ? lastKnownEmails.get(id) : null;
+            User cached = key != null ? currentUser(key) : null;
+            if (cached != null && id.equals(cached.getId())) {
+                users[i] = cached;
+            } else if (id != null) {
+                misses.add(id);
+            }
+        }
+
+        Map<Long, User> found = new HashMap<>();
+        for (int shard = 0; shard < shards.count() && found.size() < misses.size(); shard++) {
+            int index = shard;
+            List<Long> remaining = misses.stream().filter(id -> !found.containsKey(id)).toList();
+            call(index, "finding users by id", () -> {
+                try (Connection connection = shards.forRead(index, null).getConnection()) {
+                    for (int from = 0; from < remaining.size(); from += multiGetChunkSize) {
+                        List<Long> chunk = remaining.subList(from, Math.min(remaining.size(), from + multiGetChunkSize));
+                        try (PreparedStatement statement = prepare(connection,
+                                "SELECT * FROM users WHERE id IN (" + placeholders(chunk.size()) + ")")) {
+                            for (int i = 0; i < chunk.size(); i++) {
+                                statement.setLong(i + 1, chunk.get(i));
+                            }
+                            ResultSet resultSet = statement.executeQuery();
+                            while (resultSet.next()) {
+                                User user = mapResultSetToUser(resultSet);
+                                found.put(user.getId(), user);
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        found.values().forEach(user -> rememberUser(EmailUtil.normalize(user.getEmail()), user));
+
+        for (int i = 0; i < users.length; i++) {
+            if (users[i] == null && ids.get(i) != null) {
+                User user = found.get(ids.get(i));
+                users[i] = user != null ? withoutPassword(user) : null;
             }
-        } catch (SQLException e) {
-            System.err.println("Error finding user by email: " + e.getMessage());
         }
-        return Optional.empty();
+        return Arrays.asList(users);
+    }
+
+    // Last-known user read within the version cache's trust period, else null
+    private User currentUser(String key) {
+        KnownUser known = key != null && lastKnownUsers != null ? lastKnownUsers.get(key) : null;
+        return known != null && System.currentTimeMillis() - known.readAt() < versionCacheTtlMillis ? known.user() : null;
+    }
+
+    // Cache what a read returned for a user; null forgets the user
+    private void rememberUser(String key, User user) {
+        if (lastKnownUsers != null) {
+            if (user != null) {
+                lastKnownUsers.put(key, new KnownUser(withoutPassword(user), System.currentTimeMillis()));
+                lastKnownEmails.put(user.getId(), key);
+            } else {
+                lastKnownUsers.remove(key);
+            }
+        }
+        rememberVersion(key, user != null ? ProfileVersion.of(user) : null);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Version of a user's profile: from the version cache while fresh, otherwise by reading only updated_at.
+     * While the database is unavailable the last version seen is used, as findUserByEmailOrLastKnown does.
+     * @param email user email
+     * @return profile version, or null if there is no such user
+     */
+    public ProfileVersion findProfileVersion(String email) {
+        String key = EmailUtil.normalize(email);
+        CachedVersion cached = profileVersions != null ? profileVersions.get(key) : null;
+        if (cached != null && System.currentTimeMillis() - cached.checkedAt() < versionCacheTtlMillis) {
+            return cached.version();
+        }
+        try {
+            ProfileVersion version = queryProfileVersion(email);
+            rememberVersion(key, version);
+            return version;
+        } catch (DatabaseUnavailableException e) {
+            if (cached == null) {
+                throw e;
+            }
+            return cached.version();
+        }
+    }
+
+    private ProfileVersion queryProfileVersion(String email) {
+        String selectSQL = "SELECT id, updated_at FROM users WHERE " + EMAIL_MATCH;
+        int shard = shards.shardOf(email);
+
+        return call(shard, "finding profile version", () -> readConfirmingMisses(shard, email, source -> {
+            try (Connection connection = source.getConnection();
+                 PreparedStatement statement = prepare(connection, selectSQL)) {
+
+                bindEmailMatch(statement, 1, email);
+                ResultSet resultSet = statement.executeQuery();
+
+                return resultSet.next()
+                        ? new ProfileVersion(resultSet.getLong(1), resultSet.getTimestamp(2).getTime()) : null;
+            }
+        }, Objects::isNull));
+    }
+
+    private void rememberVersion(String key, ProfileVersion version) {
+        if (profileVersions == null) {
+            return;
+        }
+        if (version != null) {
+            profileVersions.put(key, new CachedVersion(version, System.currentTimeMillis()));
+        } else {
+            profileVersions.remove(key);
+        }
+    }
+
+    /**
+     * Run the lookup and row-mapping code with synthetic data, for JIT warm-up. Looks up an
+     * address no user has and maps a row selected from literals; no user row is read or written.
+     * @param email synthetic address, e.g. under the reserved .invalid domain
+     */
+    public void warmUp(String email) {
+        findUserByEmail(email);
+        emailExists(email);
+        findTokenEpoch(email);
+        String selectSQL = "SELECT 0 AS id, 'Warm Up' AS name, '0000000000' AS contact_number, 'warmup@warmup.invalid' AS email, "
+                + "'' AS password, CURRENT_TIMESTAMP AS created_at, CURRENT_TIMESTAMP AS updated_at, 0 AS token_epoch";
+        call(0, "warming up row mapping", () -> {
+            try (Connection connection = shards.forRead(0, null).getConnection();
+                 PreparedStatement statement = prepare(connection, selectSQL);
+                 ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? withoutPassword(mapResultSetToUser(resultSet)) : null;
+            }
+        });
     }
 
     // Check if email exists
     public boolean emailExists(String email) {
-        String checkSQL = "SELECT COUNT(*) FROM users WHERE email = ?";
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(checkSQL)) {
-            
-            statement.setString(1, email);
-            ResultSet resultSet = statement.executeQuery();
-            
-            if (resultSet.next()) {
-                return resultSet.getInt(1) > 0;
+        String checkSQL = "SELECT COUNT(*) FROM users WHERE " + EMAIL_MATCH;
+        int shard = shards.shardOf(email);
+
+        return call(shard, "checking email existence", () -> readConfirmingMisses(shard, email, source -> {
+            try (Connection connection = source.getConnection();
+                 PreparedStatement statement = prepare(connection, checkSQL)) {
+
+                bindEmailMatch(statement, 1, email);
+                ResultSet resultSet = statement.executeQuery();
+
+                return resultSet.next() && resultSet.getInt(1) > 0;
             }
-        } catch (SQLException e) {
-            System.err.println("Error checking email existence: " + e.getMessage());
-        }
-        return false;
+        }, found -> !found));
     }
 
-    // Check if contact number exists
+    // Check if contact number exists (on any shard). A miss is confirmed on each shard's primary:
+    // a lagging replica could miss a number another instance has just registered
     public boolean contactNumberExists(String contactNumber) {
+        long value = contactNumbersLoaded ? parseContactNumber(contactNumber) : -1;
+        if (value >= 0) {
+            if (contactNumbers.contains(value)) {
+                return true; // Numbers are never removed, so a hit is final
+            }
+            if (contactRegistryTrustsMisses) {
+                return false;
+            }
+        }
+
         String checkSQL = "SELECT COUNT(*) FROM users WHERE contact_number = ?";
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(checkSQL)) {
-            
-            statement.setString(1, contactNumber);
-            ResultSet resultSet = statement.executeQuery();
-            
-            if (resultSet.next()) {
-                return resultSet.getInt(1) > 0;
+
+        DatabaseUnavailableException failure = null; // A "no" is only final if every shard answered
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int index = shard;
+            try {
+                boolean found = call(index, "checking contact number existence", () -> {
+                    try (Connection connection = shards.forWrite(index).getConnection();
+                         PreparedStatement statement = prepare(connection, checkSQL)) {
+
+                        statement.setString(1, contactNumber);
+                        ResultSet resultSet = statement.executeQuery();
+
+                        return resultSet.next() && resultSet.getInt(1) > 0;
+                    }
+                });
+                if (found) {
+                    return true;
+                }
+            } catch (DatabaseUnavailableException e) {
+                failure = e;
             }
-        } catch (SQLException e) {
-            System.err.println("Error checking contact number existence: " + e.getMessage());
+        }
+        if (failure != null) {
+            throw failure;
         }
         return false;
     }
 
+    // Find a user's email by id, null if the user does not exist (primary: the result is cached).
+    // Ids don't say which shard holds the user, so every shard is asked
+    public String findEmailById(long id) {
+        if (emailLookups == null) {
+            return queryEmailById(id);
+        }
+        return emailLookups.get(id, () -> queryEmailById(id));
+    }
+
+    private String queryEmailById(long id) {
+        String selectSQL = "SELECT email FROM users WHERE id = ?";
+
+        DatabaseUnavailableException failure = null; // "No such user" is only final if every shard answered
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int index = shard;
+            try {
+                String email = call(index, "finding email by id", () -> {
+                    try (Connection connection = shards.forWrite(index).getConnection();
+                         PreparedStatement statement = prepare(connection, selectSQL)) {
+
+                        statement.setLong(1, id);
+                        ResultSet resultSet = statement.executeQuery();
+
+                        return resultSet.next() ? resultSet.getString(1) : null;
+                    }
+                });
+                if (email != null) {
+                    return email;
+                }
+            } catch (DatabaseUnavailableException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return null;
+    }
+
+    // Read the user's revocation epoch, -1 if the user does not exist (primary: must not be stale)
+    public long findTokenEpoch(String email) {
+        if (epochLookups == null) {
+            return queryTokenEpoch(email);
+        }
+        return epochLookups.get(EmailUtil.normalize(email), () -> queryTokenEpoch(email));
+    }
+
+    private long queryTokenEpoch(String email) {
+        String selectSQL = "SELECT token_epoch FROM users WHERE " + EMAIL_MATCH;
+        int shard = shards.shardOf(email);
+
+        return call(shard, "finding token epoch", () -> {
+            try (Connection connection = shards.forWrite(shard).getConnection();
+                 PreparedStatement statement = prepare(connection, selectSQL)) {
+
+                bindEmailMatch(statement, 1, email);
+                ResultSet resultSet = statement.executeQuery();
+
+                return resultSet.next() ? resultSet.getLong(1) : -1L;
+            }
+        });
+    }
+
+    /**
+     * Advance a user's revocation epoch on the primary and read back the stored
+     * value in the same transaction, so the caller never builds on an epoch read
+     * from a lagging replica and concurrent advances from any instance each get
+     * a distinct, current epoch
+     * @param email user email
+     * @return the new epoch, or -1 if there is no such user
+     */
+    public long advanceTokenEpoch(String email) {
+        String updateSQL = "UPDATE users SET token_epoch = token_epoch + 1, epoch_changed_at = CURRENT_TIMESTAMP WHERE "
+                + EMAIL_MATCH;
+        String selectSQL = "SELECT token_epoch FROM users WHERE " + EMAIL_MATCH;
+
+        int shard = shards.shardOf(email);
+
+        try {
+            return call(shard, "advancing token epoch", () -> {
+                try (Connection connection = shards.forWrite(shard).getConnection()) {
+                    connection.setAutoCommit(false);
+                    try (PreparedStatement update = prepare(connection, updateSQL);
+                         PreparedStatement select = prepare(connection, selectSQL)) {
+                        bindEmailMatch(update, 1, email);
+                        long epoch = -1;
+                        if (update.executeUpdate() > 0) {
+                            bindEmailMatch(select, 1, email);
+                            ResultSet resultSet = select.executeQuery();
+                            epoch = resultSet.next() ? resultSet.getLong(1) : -1;
+                        }
+                        connection.commit();
+                        return epoch;
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                }
+            });
+        } finally {
+            router.recordWrite(email); // The row changed; keep this user's reads on the primary for a while
+            forgetEpochLookups(EmailUtil.normalize(email));
+        }
+    }
+
+    // Advance every user's revocation epoch with a single statement per shard
+    public boolean incrementAllTokenEpochs() {
+        String updateSQL = "UPDATE users SET token_epoch = token_epoch + 1, epoch_changed_at = CURRENT_TIMESTAMP";
+
+        boolean revoked = true;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int index = shard;
+            try {
+                call(index, "incrementing token epochs", () -> {
+                    try (Connection connection = shards.forWrite(index).getConnection();
+                         Statement statement = connection.createStatement()) {
+                        return statement.executeUpdate(updateSQL); // Touches every row: no query timeout
+                    }
+                });
+            } catch (DatabaseUnavailableException e) {
+                revoked = false;
+            }
+        }
+        forgetEpochLookups(null);
+        return revoked;
+    }
+
+    // Called after epoch writes: queries in flight may have read the old epoch (users rows carry it too); null forgets every user
+    private void forgetEpochLookups(String email) {
+        if (userLookups == null) {
+            return;
+        }
+        if (email == null) {
+            userLookups.forgetAll();
+            epochLookups.forgetAll();
+        } else {
+            userLookups.forget(email);
+            epochLookups.forget(email);
+        }
+    }
+
+    // Log how many lookups were served by another caller's query (queries saved), when there were new ones
+    @Scheduled(fixedDelayString = "${single-flight.report-interval-ms:60000}")
+    void reportSingleFlight() {
+        if (userLookups == null) {
+            return;
+        }
+        long executed = userLookups.executed() + epochLookups.executed() + emailLookups.executed();
+        long saved = userLookups.shared() + epochLookups.shared() + emailLookups.shared();
+        if (executed + saved == reportedLookups) {
+            return;
+        }
+        reportedLookups = executed + saved;
+        log.info("Single-flight: {} queries saved of {} lookups ({} users, {} epochs, {} ids), {} wait timeouts",
+                saved, executed + saved, userLookups.shared(), epochLookups.shared(), emailLookups.shared(),
+                userLookups.timedOut() + epochLookups.timedOut() + emailLookups.timedOut());
+    }
+
+    /**
+     * Epochs changed since the given watermarks. Each shard has its own
+     * watermark, kept in that shard's clock (the epoch_changed_at values it
+     * wrote), so the application's clock is never compared with the database's.
+     *
+     * Rows are read in (epoch_changed_at, id) order. A shard with more changes
+     * than the limit returns a cursor after the last row read, and the next
+     * call continues from there; its watermark only moves once it is caught up.
+     * @param watermarks per-shard watermarks (epoch milliseconds) from the previous call; null, or a
+     *        length that no longer matches the shards, starts from each shard's current time
+     * @param cursors per-shard cursors from the previous call, or null
+     * @param overlapMillis re-read this far before each watermark, for updates that committed after
+     *        a later one was already seen
+     * @param limit most changes read per shard in one call
+     * @return the changes, watermarks and cursors to pass next time, or null if any shard could not be read
+     */
+    public EpochChanges findTokenEpochChanges(long[] watermarks, EpochCursor[] cursors, long overlapMillis, int limit) {
+        // Keyset order; InnoDB's epoch_changed_at index ends in the primary key, so it serves the range scan
+        String selectSQL = "SELECT id, email, token_epoch, epoch_changed_at FROM users "
+                + "WHERE (epoch_changed_at, id) > (?, ?) ORDER BY epoch_changed_at, id LIMIT ?";
+
+        boolean restart = watermarks == null || watermarks.length != shards.count();
+        long[] next = new long[shards.count()];
+        EpochCursor[] nextCursors = new EpochCursor[next.length];
+        Map<String, Long> epochs = new HashMap<>();
+        for (int shard = 0; shard < next.length; shard++) {
+            int index = shard;
+            long since = restart ? 0 : watermarks[shard];
+            EpochCursor cursor = restart || cursors == null || cursors.length != next.length ? null : cursors[shard];
+            try {
+                nextCursors[shard] = call(index, "finding changed token epochs", () -> {
+                    try (Connection connection = shards.forWrite(index).getConnection()) {
+                        if (since == 0) {
+                            next[index] = databaseTime(connection);
+                            return null;
+                        }
+                        EpochCursor last = cursor != null ? cursor
+                                : new EpochCursor(new Timestamp(since - overlapMillis), Long.MIN_VALUE, since);
+                        int rows = 0;
+                        try (PreparedStatement statement = prepare(connection, selectSQL)) {
+                            statement.setTimestamp(1, last.changedAt());
+                            statement.setLong(2, last.id());
+                            statement.setInt(3, limit);
+                            statement.setFetchSize(Math.min(limit, 10_000));
+                            ResultSet resultSet = statement.executeQuery();
+                            while (resultSet.next()) {
+                                epochs.merge(EmailUtil.normalize(resultSet.getString(2)), resultSet.getLong(3), Math::max);
+                                Timestamp changedAt = resultSet.getTimestamp(4);
+                                last = new EpochCursor(changedAt, resultSet.getLong(1),
+                                        Math.max(last.latest(), changedAt.getTime()));
+                                rows++;
+                            }
+                        }
+                        next[index] = rows >= limit ? since : last.latest();
+                        return rows >= limit ? last : null; // e.g. a global revocation, read over several calls
+                    }
+                });
+            } catch (DatabaseUnavailableException e) {
+                return null;
+            }
+        }
+        return new EpochChanges(epochs, next, nextCursors);
+    }
+
+    // The database's own clock, in epoch milliseconds
+    private static long databaseTime(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT CURRENT_TIMESTAMP")) {
+            resultSet.next();
+            return resultSet.getTimestamp(1).getTime();
+        }
+    }
+
     // Get all users (for testing)
     public List<User> getAllUsers() {
         List<User> users = new ArrayList<>();
         String selectSQL = "SELECT * FROM users";
         
-        try (Connection connection = dataSource.getConnection();
-             Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(selectSQL)) {
-            
-            while (resultSet.next()) {
-                users.add(mapResultSetToUser(resultSet));
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting all users: " + e.getMessage());
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int index = shard;
+            call(index, "getting all users", () -> {
+                try (Connection connection = shards.forRead(index, null).getConnection();
+                     Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery(selectSQL)) {
+
+                    while (resultSet.next()) {
+                        users.add(mapResultSetToUser(resultSet));
+                    }
+                    return null;
+                }
+            });
         }
         return users;
     }
 
+    // Bounded map that drops the least recently used entry
+    private static <K, V> Map<K, V> lruMap(int capacity) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    // Copy kept for fallback reads; the password hash is not held longer than the query needs it
+    private static User withoutPassword(User user) {
+        User copy = new User(user.getName(), user.getContactNumber(), user.getEmail(), null);
+        copy.setId(user.getId());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        copy.setTokenEpoch(user.getTokenEpoch());
+        return copy;
+    }
+
     // Helper method to map ResultSet to User object
     private User mapResultSetToUser(ResultSet resultSet) throws SQLException {
         User user = new User();
@@ -157,6 +1161,7 @@ public class DatabaseService {
         user.setPassword(resultSet.getString("password"));
         user.setCreatedAt(resultSet.getTimestamp("created_at").toLocalDateTime());
         user.setUpdatedAt(resultSet.getTimestamp("updated_at").toLocalDateTime());
+        user.setTokenEpoch(resultSet.getLong("token_epoch"));
         return user;
     }
 } 
\ No newline at end of file
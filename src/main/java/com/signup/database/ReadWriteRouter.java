@@ -0,0 +1,213 @@
+package com.signup.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the DataSource for each query: writes always go to the primary,
+ * read-only lookups go round-robin to replicas that are keeping up.
+ *
+ * Lag is measured with a heartbeat row the primary rewrites every second
+ * with its own database clock, so skew between application hosts doesn't
+ * read as lag; a replica whose copy is older than max-lag-ms (or
+ * unreachable) gets no reads until it catches up.
+ *
+ * Keys written through this instance are pinned to the primary for
+ * read-your-writes-ms, so a login right after signup sees the new row. The
+ * pin is per instance: a request that lands on another instance after the
+ * write can read a replica that misses the row, so DatabaseService reads a
+ * single-key miss again on the primary. Multi-get lookups are not re-read.
+ */
+@Component
+@Lazy(false) // Owns a @Scheduled task, which lazy initialization would never start
+public class ReadWriteRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRouter.class);
+
+    @Autowired
+    private DataSource primary;
+
+    // Comma-separated JDBC URLs; empty means every query uses the primary
+    @Value("${datasource.replica.urls:}")
+    private String replicaUrls;
+
+    @Value("${datasource.replica.username:}")
+    private String replicaUsername;
+
+    @Value("${datasource.replica.password:}")
+    private String replicaPassword;
+
+    @Value("${datasource.replica.pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${spring.datasource.hikari.connection-timeout:30000}")
+    private long connectionTimeout;
+
+    // Replicas further behind than this are skipped; -1 trusts replicas without measuring
+    @Value("${datasource.replica.max-lag-ms:2000}")
+    private long maxLagMillis;
+
+    @Value("${datasource.replica.read-your-writes-ms:5000}")
+    private long readYourWritesMillis;
+
+    private static final class Replica {
+        final HikariDataSource dataSource;
+        volatile boolean healthy;
+
+        Replica(HikariDataSource dataSource, boolean healthy) {
+            this.dataSource = dataSource;
+            this.healthy = healthy;
+        }
+    }
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private boolean heartbeatTableReady;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    // Key -> time of the last write through this instance
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        int index = 0;
+        for (String url : replicaUrls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + index++);
+            config.setJdbcUrl(url.trim());
+            config.setUsername(replicaUsername);
+            config.setPassword(replicaPassword);
+            config.setMaximumPoolSize(replicaPoolSize);
+            config.setConnectionTimeout(connectionTimeout);
+            config.setReadOnly(true);
+            config.setInitializationFailTimeout(-1); // Don't fail startup if a replica is down
+            replicas.add(new Replica(new HikariDataSource(config), maxLagMillis < 0));
+        }
+        if (!replicas.isEmpty()) {
+            log.info("Routing reads to {} replica(s)", replicas.size());
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    /**
+     * @return DataSource for writes and reads that must be current
+     */
+    public DataSource forWrite() {
+        return primary;
+    }
+
+    /**
+     * @param key lookup key (e.g. email) used for read-your-writes pinning, may be null
+     * @return a healthy replica, or the primary if none is usable or the key was just written
+     */
+    public DataSource forRead(String key) {
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+        if (key != null) {
+            Long writtenAt = recentWrites.get(key);
+            if (writtenAt != null && System.currentTimeMillis() - writtenAt < readYourWritesMillis) {
+                return primary;
+            }
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.dataSource;
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * Pin reads for this key to the primary until replicas have caught up
+     * @param key key that was just written
+     */
+    public void recordWrite(String key) {
+        if (!replicas.isEmpty() && key != null) {
+            recentWrites.put(key, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Write the heartbeat on the primary and re-measure each replica's lag
+     */
+    @Scheduled(fixedDelayString = "${datasource.replica.heartbeat-ms:1000}")
+    public void checkReplicas() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        recentWrites.values().removeIf(writtenAt -> now - writtenAt >= readYourWritesMillis);
+        if (maxLagMillis < 0) {
+            return;
+        }
+
+        long beat; // The primary's clock, both written and compared against
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (!heartbeatTableReady) {
+                statement.execute("CREATE TABLE IF NOT EXISTS replication_heartbeat (id INT PRIMARY KEY, beat BIGINT NOT NULL)");
+                heartbeatTableReady = true;
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT CURRENT_TIMESTAMP(3)")) {
+                resultSet.next();
+                beat = resultSet.getTimestamp(1).getTime();
+            }
+            if (statement.executeUpdate("UPDATE replication_heartbeat SET beat = " + beat + " WHERE id = 1") == 0) {
+                statement.executeUpdate("INSERT INTO replication_heartbeat (id, beat) VALUES (1, " + beat + ")");
+            }
+        } catch (SQLException e) {
+            log.error("Error writing replication heartbeat: {}", e.getMessage());
+            return;
+        }
+
+        for (Replica replica : replicas) {
+            long lag = -1;
+            try (Connection connection = replica.dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("SELECT beat FROM replication_heartbeat WHERE id = 1");
+                 ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    lag = Math.max(0, beat - resultSet.getLong(1)); // How many of the primary's milliseconds behind
+                }
+            } catch (SQLException e) {
+                log.debug("Replica {} unavailable: {}", replica.dataSource.getPoolName(), e.getMessage());
+            }
+            boolean healthy = lag >= 0 && lag <= maxLagMillis;
+            if (healthy != replica.healthy) {
+                log.info("Replica {} {} (lag {} ms)", replica.dataSource.getPoolName(),
+                        healthy ? "back in rotation" : "taken out of rotation", lag);
+            }
+            replica.healthy = healthy;
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.signup.database;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped log of the session state AuthService caches:
+ * each user's revocation epoch and the id -> email map behind compact tokens.
+ *
+ * The users table stays the source of truth; the journal only spares a
+ * restarted instance from fetching every active user's epoch again, one
+ * query per user, as the first requests come in. Startup reads the latest
+ * snapshot and the journal after it, then asks the database for epochs
+ * changed since the last recorded watermark, so revocations made while the
+ * instance was down, or lost from an unsynced tail, still win. Watermarks
+ * are epoch_changed_at values from the database, one per shard, so skew
+ * between the application's clock and the database's cannot skip a change.
+ *
+ * Records reach the page cache as they are written, so a process crash
+ * loses nothing; session-journal.fsync-interval-ms only bounds what a
+ * machine crash can lose. Once the journal passes its compaction threshold
+ * it is rolled and the caches are written out as a new snapshot. If the
+ * files cannot be read at startup, journaling stays off and the caches load
+ * lazily until a maintenance pass manages to restore them.
+ */
+@Component
+@Lazy(false) // Owns a @Scheduled task, which lazy initialization would never start
+public class SessionJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionJournal.class);
+
+    private static final int MAGIC = 0x534A4E4C; // "SJNL"
+    private static final int HEADER_LENGTH = 8;  // Magic and format version
+
+    // Record: int length | byte type | long time | payload | int CRC32 of type..payload
+    private static final byte EPOCH = 1;        // long epoch, short length, UTF-8 email
+    private static final byte USER = 2;         // long id, short length, UTF-8 email
+    private static final byte CLEAR_EPOCHS = 3; // no payload
+    private static final byte WATERMARKS = 4;   // short count, long epoch_changed_at per shard
+    private static final int MAX_RECORD = 4 + 1 + 8 + 8 + 2 + 0xFFFF + 4;
+
+    @Value("${session-journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${session-journal.dir:data/session-journal}")
+    private String directory;
+
+    // 0 forces each record to disk before the request continues; otherwise dirty pages are forced on this interval
+    @Value("${session-journal.fsync-interval-ms:1000}")
+    private long fsyncInterval;
+
+    // Journal size that triggers a new snapshot; the mapping grows by this much at a time
+    @Value("${session-journal.compact-threshold-mb:64}")
+    private int compactThresholdMb;
+
+    // Re-read epochs changed this long before the recorded watermarks, covering updates that committed out of order
+    @Value("${session-journal.reconcile-margin-ms:300000}")
+    private long reconcileMargin;
+
+    // After a failed restore, maintenance tries the files again this often
+    @Value("${session-journal.restore-retry-ms:30000}")
+    private long restoreRetryInterval;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private UserShards shards;
+
+    private Path journalPath;
+    private Path rolledPath;
+    private Path snapshotPath;
+
+    // Live caches owned by AuthService; written out as snapshots
+    private Map<String, Long> epochs;
+    private Map<Long, String> users;
+
+    // Guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private boolean dirty;
+    private long lastForced;
+    private final CRC32 appendCrc = new CRC32();
+    private long[] lastWatermarks; // The caches hold every change up to these; written into each snapshot
+
+    private final Object compactionLock = new Object();
+
+    // Set while the files could not be read; maintain() retries from nextRestoreAttempt on
+    private volatile boolean restorePending;
+    private volatile long nextRestoreAttempt;
+
+    /**
+     * Fill the caches from the snapshot and journal, reconcile them with the
+     * database, and start journaling. Epochs already in the maps are kept
+     * when they are newer, so this may run while requests are being served.
+     * @param liveEpochs email -> revocation epoch cache
+     * @param liveUsers user id -> email cache
+     */
+    public void restore(Map<String, Long> liveEpochs, Map<Long, String> liveUsers) {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Path.of(directory);
+        if (!dir.isAbsolute()) {
+            log.warn("session-journal.dir {} is relative; it resolves to {} and moves with the working directory",
+                    directory, dir.toAbsolutePath());
+        }
+        journalPath = dir.resolve("journal");
+        rolledPath = dir.resolve("journal.old");
+        snapshotPath = dir.resolve("snapshot");
+        epochs = liveEpochs;
+        users = liveUsers;
+        if (!load(liveEpochs, liveUsers)) {
+            nextRestoreAttempt = System.currentTimeMillis() + restoreRetryInterval;
+            restorePending = true;
+        }
+    }
+
+    // Replay, reconcile and start journaling; false if the files could not be read
+    private boolean load(Map<String, Long> liveEpochs, Map<Long, String> liveUsers) {
+        long started = System.nanoTime();
+        long[][] watermarks = {null};
+        try {
+            Files.createDirectories(journalPath.getParent());
+            for (Path file : new Path[] {snapshotPath, rolledPath, journalPath}) {
+                replay(file, liveEpochs, liveUsers, watermarks);
+            }
+        } catch (IOException e) {
+            log.error("Unable to read session journal in {}, journaling is off until a retry succeeds: {}",
+                    journalPath.getParent(), e.getMessage());
+            liveEpochs.clear();
+            return false;
+        }
+
+        int reconciled = 0;
+        DatabaseService.EpochChanges changed = null;
+        if (watermarks[0] != null && watermarks[0].length == shards.count()) {
+            changed = databaseService.findTokenEpochChanges(watermarks[0], null, reconcileMargin, Integer.MAX_VALUE);
+        }
+        if (changed != null) {
+            changed.epochs().forEach((email, epoch) -> liveEpochs.merge(email, epoch, Math::max));
+            reconciled = changed.epochs().size();
+            lastWatermarks = changed.watermarks();
+        } else if (!liveEpochs.isEmpty()) {
+            // Without the recent changes a revoked epoch could come back; load epochs lazily instead
+            log.warn("Could not reconcile session epochs with the database{}; discarding them",
+                    watermarks[0] == null ? " (no watermark recorded)" : "");
+            liveEpochs.clear();
+        }
+        log.info("Restored {} session epoch(s) and {} user id(s) in {} ms ({} reconciled with the database)",
+                liveEpochs.size(), liveUsers.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), reconciled);
+
+        // Start from one fresh snapshot and an empty journal, off the startup path
+        Thread snapshot = new Thread(this::compact, "session-snapshot");
+        snapshot.setDaemon(true);
+        snapshot.start();
+        return true;
+    }
+
+    /**
+     * @param email normalized email
+     * @param epoch the user's current revocation epoch
+     */
+    public void recordEpoch(String email, long epoch) {
+        append(EPOCH, epoch, email);
+    }
+
+    /**
+     * @param id user id
+     * @param email normalized email
+     */
+    public void recordUser(long id, String email) {
+        append(USER, id, email);
+    }
+
+    // Every cached epoch was dropped after a global revocation
+    public void recordEpochsCleared() {
+        append(CLEAR_EPOCHS, 0, null);
+    }
+
+    /**
+     * Record how far the caches have been synced with the database; call after
+     * the epochs read up to these watermarks have been recorded
+     * @param watermarks per-shard epoch_changed_at watermarks, in the database's clock
+     */
+    public synchronized void recordWatermarks(long[] watermarks) {
+        if (buffer == null || Arrays.equals(watermarks, lastWatermarks)) {
+            return;
+        }
+        try {
+            if (buffer.remaining() < MAX_RECORD) {
+                grow();
+            }
+            int start = begin(buffer, WATERMARKS, System.currentTimeMillis());
+            buffer.putShort((short) watermarks.length);
+            for (long watermark : watermarks) {
+                buffer.putLong(watermark);
+            }
+            finish(buffer, appendCrc, start);
+            lastWatermarks = watermarks.clone();
+            dirty = true;
+        } catch (IOException e) {
+            log.error("Unable to append to session journal: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Retry a failed restore, force pending records to disk and snapshot once
+     * the journal has grown past its threshold
+     */
+    @Scheduled(fixedDelayString = "${session-journal.maintenance-interval-ms:100}")
+    public void maintain() {
+        if (restorePending && System.currentTimeMillis() >= nextRestoreAttempt) {
+            retryRestore();
+        }
+        boolean compactionDue;
+        synchronized (this) {
+            if (buffer == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (dirty && now - lastForced >= fsyncInterval) {
+                buffer.force();
+                dirty = false;
+                lastForced = now;
+            }
+            compactionDue = buffer.position() > compactThresholdBytes();
+        }
+        if (compactionDue) {
+            compact();
+        }
+    }
+
+    // Same caches as the failed attempt; their epochs were dropped then and have only loaded lazily since
+    private void retryRestore() {
+        if (load(epochs, users)) {
+            restorePending = false;
+        } else {
+            nextRestoreAttempt = System.currentTimeMillis() + restoreRetryInterval;
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (buffer == null) {
+            return;
+        }
+        buffer.force();
+        buffer = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing session journal: {}", e.getMessage());
+        }
+    }
+
+    // Roll the journal aside, snapshot the caches (which hold everything it recorded), then drop it
+    private void compact() {
+        synchronized (compactionLock) {
+            long started = System.nanoTime();
+            try {
+                long[] watermarks;
+                synchronized (this) {
+                    watermarks = lastWatermarks; // Taken before the caches are read, so they are at least this current
+                    if (buffer != null) {
+                        buffer.force();
+                        channel.close();
+                        buffer = null;
+                    }
+                    if (Files.exists(journalPath)) {
+                        Files.move(journalPath, rolledPath, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    openJournal();
+                }
+                int written = writeSnapshot(watermarks);
+                Files.deleteIfExists(rolledPath);
+                log.debug("Session snapshot of {} record(s) written in {} ms", written,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            } catch (IOException e) {
+                log.error("Session journal compaction failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void openJournal() throws IOException {
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, compactThresholdBytes());
+        buffer.putInt(MAGIC).putInt(1);
+        dirty = true;
+    }
+
+    private synchronized void append(byte type, long value, String email) {
+        if (buffer == null) {
+            return; // Disabled, or not restored yet; the next snapshot picks the change up from the caches
+        }
+        byte[] emailBytes = email != null ? email.getBytes(StandardCharsets.UTF_8) : null;
+        try {
+            if (buffer.remaining() < MAX_RECORD) {
+                grow();
+            }
+            int start = buffer.position();
+            encode(buffer, appendCrc, type, System.currentTimeMillis(), value, emailBytes);
+            if (fsyncInterval == 0) {
+                buffer.force(start, buffer.position() - start);
+            } else {
+                dirty = true;
+            }
+        } catch (IOException e) {
+            log.error("Unable to append to session journal: {}", e.getMessage());
+        }
+    }
+
+    // Map a larger window of the same file; the old mapping is released by the GC
+    private void grow() throws IOException {
+        long size = (long) buffer.capacity() + compactThresholdBytes();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("journal is full, compaction is not keeping up");
+        }
+        int position = buffer.position();
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.position(position);
+    }
+
+    private int writeSnapshot(long[] watermarks) throws IOException {
+        Path temporary = snapshotPath.resolveSibling("snapshot.tmp");
+        long now = System.currentTimeMillis();
+        int written = 0;
+        CRC32 crc = new CRC32();
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 20);
+        chunk.putInt(MAGIC).putInt(1);
+        if (watermarks != null) {
+            int start = begin(chunk, WATERMARKS, now);
+            chunk.putShort((short) watermarks.length);
+            for (long watermark : watermarks) {
+                chunk.putLong(watermark);
+            }
+            finish(chunk, crc, start);
+        }
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<Long, String> user : users.entrySet()) {
+                chunk = flushIfFull(out, chunk);
+                encode(chunk, crc, USER, now, user.getKey(), user.getValue().getBytes(StandardCharsets.UTF_8));
+                written++;
+            }
+            for (Map.Entry<String, Long> epoch : epochs.entrySet()) {
+                if (epoch.getValue() >= 0) { // Unknown users are cached as -1; not worth keeping
+                    chunk = flushIfFull(out, chunk);
+                    encode(chunk, crc, EPOCH, now, epoch.getValue(), epoch.getKey().getBytes(StandardCharsets.UTF_8));
+                    written++;
+                }
+            }
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                out.write(chunk);
+            }
+            out.force(true);
+        }
+        Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    private static ByteBuffer flushIfFull(FileChannel out, ByteBuffer chunk) throws IOException {
+        if (chunk.remaining() >= MAX_RECORD) {
+            return chunk;
+        }
+        chunk.flip();
+        while (chunk.hasRemaining()) {
+            out.write(chunk);
+        }
+        return chunk.clear();
+    }
+
+    private static void encode(ByteBuffer target, CRC32 crc, byte type, long time, long value, byte[] email) {
+        int start = begin(target, type, time);
+        if (email != null) {
+            int length = Math.min(email.length, 0xFFFF);
+            target.putLong(value).putShort((short) length).put(email, 0, length);
+        }
+        finish(target, crc, start);
+    }
+
+    // Start a record; its payload follows, then finish() adds the CRC and fills in the length
+    private static int begin(ByteBuffer target, byte type, long time) {
+        int start = target.position();
+        target.position(start + 4);
+        target.put(type).putLong(time);
+        return start;
+    }
+
+    private static void finish(ByteBuffer target, CRC32 crc, int start) {
+        int end = target.position();
+        crc.reset();
+        crc.update(target.duplicate().position(start + 4).limit(end));
+        target.putInt((int) crc.getValue());
+        target.putInt(start, end - start - 4);
+    }
+
+    // Apply one file's records in order, leaving the last recorded watermarks in watermarks[0].
+    // A cleared epoch only drops a cache entry, which is then reloaded from the database
+    private static void replay(Path file, Map<String, Long> epochs, Map<Long, String> users, long[][] watermarks)
+            throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() < HEADER_LENGTH) {
+                return;
+            }
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (data.getInt() != MAGIC || data.getInt() != 1) {
+                log.warn("Ignoring {}: not a session journal", file);
+                return;
+            }
+            CRC32 check = new CRC32();
+            while (data.remaining() > 4) {
+                int length = data.getInt(data.position());
+                // A zero length is unwritten space; anything that does not check out is a torn tail
+                if (length < 9 || length + 8 > data.remaining()) {
+                    break;
+                }
+                int bodyStart = data.position() + 4;
+                check.reset();
+                check.update(data.duplicate().position(bodyStart).limit(bodyStart + length));
+                if ((int) check.getValue() != data.getInt(bodyStart + length)) {
+                    log.warn("Session journal {} ends in a damaged record; replayed up to it", file.getFileName());
+                    break;
+                }
+                data.position(bodyStart);
+                byte type = data.get();
+                data.getLong(); // Time written, for inspecting the file
+                if (type == EPOCH || type == USER) {
+                    long value = data.getLong();
+                    byte[] email = new byte[data.getShort() & 0xFFFF];
+                    data.get(email);
+                    String decoded = new String(email, StandardCharsets.UTF_8);
+                    if (type == EPOCH) {
+                        epochs.merge(decoded, value, Math::max);
+                    } else {
+                        users.put(value, decoded);
+                    }
+                } else if (type == CLEAR_EPOCHS) {
+                    epochs.clear();
+                } else if (type == WATERMARKS) {
+                    long[] recorded = new long[data.getShort() & 0xFFFF];
+                    for (int i = 0; i < recorded.length; i++) {
+                        recorded[i] = data.getLong();
+                    }
+                    watermarks[0] = recorded;
+                }
+                data.position(bodyStart + length + 4);
+            }
+        }
+    }
+
+    private long compactThresholdBytes() {
+        return (long) compactThresholdMb << 20;
+    }
+}
@@ -0,0 +1,120 @@
+package com.signup.database;
+
+import com.signup.util.EmailUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.StringJoiner;
+
+/**
+ * Moves users whose email now hashes to a different shard, e.g. after a
+ * shard was appended to datasource.shards.urls.
+ *
+ * Each row is copied (with its id and every column) to its owner and then
+ * deleted from the old shard, so an interrupted run can simply be repeated.
+ * Users in flight are briefly invisible to lookups, so run it with the
+ * instance out of rotation: start with datasource.shards.rebalance=true.
+ *
+ * Emails are only UNIQUE within a shard. If the owner already holds another
+ * user with a misplaced row's email (signed up while the row was not yet
+ * found there), the misplaced row is left where it is and reported.
+ */
+@Component
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    @Autowired
+    private UserShards shards;
+
+    /**
+     * @return number of users moved
+     */
+    public int rebalance() {
+        int moved = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            try {
+                moved += drainMisplaced(shard);
+            } catch (SQLException e) {
+                log.error("Error rebalancing shard {}: {}", shard, e.getMessage());
+            }
+        }
+        log.info("Shard rebalance finished: {} user(s) moved", moved);
+        return moved;
+    }
+
+    private int drainMisplaced(int source) throws SQLException {
+        int moved = 0;
+        DataSource sourceData = shards.forWrite(source);
+        try (Connection reader = sourceData.getConnection();
+             Statement scan = reader.createStatement();
+             ResultSet rows = scan.executeQuery("SELECT * FROM users")) {
+            ResultSetMetaData meta = rows.getMetaData();
+            String insertSQL = insertFor(meta);
+            while (rows.next()) {
+                String email = rows.getString("email");
+                int owner = shards.shardOf(email);
+                if (owner == source) {
+                    continue;
+                }
+                if (!copyRow(rows, meta, insertSQL, shards.forWrite(owner))) {
+                    log.warn("Not moving user {} from shard {}: shard {} has another user with that email",
+                            rows.getLong("id"), source, owner);
+                    continue;
+                }
+                try (Connection connection = sourceData.getConnection();
+                     PreparedStatement delete = connection.prepareStatement("DELETE FROM users WHERE id = ?")) {
+                    delete.setLong(1, rows.getLong("id"));
+                    delete.executeUpdate();
+                }
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    // Insert the current row on the target unless a previous run already did;
+    // false if the target holds a different user with the same email
+    private static boolean copyRow(ResultSet rows, ResultSetMetaData meta, String insertSQL, DataSource target)
+            throws SQLException {
+        long id = rows.getLong("id");
+        try (Connection connection = target.getConnection()) {
+            try (PreparedStatement existing = connection.prepareStatement(
+                    "SELECT id FROM users WHERE id = ? OR LOWER(email) = ?")) {
+                existing.setLong(1, id);
+                existing.setString(2, EmailUtil.normalize(rows.getString("email")));
+                try (ResultSet resultSet = existing.executeQuery()) {
+                    if (resultSet.next()) {
+                        return resultSet.getLong(1) == id && !resultSet.next();
+                    }
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(insertSQL)) {
+                for (int column = 1; column <= meta.getColumnCount(); column++) {
+                    insert.setObject(column, rows.getObject(column));
+                }
+                insert.executeUpdate();
+            }
+        }
+        return true;
+    }
+
+    private static String insertFor(ResultSetMetaData meta) throws SQLException {
+        StringJoiner columns = new StringJoiner(", ");
+        StringJoiner values = new StringJoiner(", ");
+        for (int column = 1; column <= meta.getColumnCount(); column++) {
+            columns.add(meta.getColumnName(column));
+            values.add("?");
+        }
+        return "INSERT INTO users (" + columns + ") VALUES (" + values + ")";
+    }
+}
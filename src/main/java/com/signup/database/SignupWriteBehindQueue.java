@@ -0,0 +1,131 @@
+package com.signup.database;
+
+import com.signup.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue of validated signups drained by one background thread.
+ *
+ * The writer waits at most flushIntervalMillis after the first pending
+ * signup (or until maxBatchSize are pending) and hands the whole group to
+ * the flush callback, which inserts it in one transaction and completes
+ * each signup's future. A caller that stops waiting can withdraw its signup
+ * until the writer has taken it; after that, only the flush decides.
+ */
+class SignupWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(SignupWriteBehindQueue.class);
+
+    static final class PendingSignup {
+        final User user;
+        final CompletableFuture<User> result = new CompletableFuture<>();
+        // Set once, by whichever comes first: the writer taking it or the caller withdrawing it
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        PendingSignup(User user) {
+            this.user = user;
+        }
+    }
+
+    private final BlockingQueue<PendingSignup> queue;
+    private final int maxBatchSize;
+    private final long flushIntervalNanos;
+    private final Consumer<List<PendingSignup>> flusher;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    SignupWriteBehindQueue(int capacity, int maxBatchSize, long flushIntervalMillis,
+                           Consumer<List<PendingSignup>> flusher) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.flusher = flusher;
+        this.writer = new Thread(this::run, "signup-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * @param user validated user to insert
+     * @return queued signup, whose result completes with the saved user, or null if the queue is full
+     */
+    PendingSignup offer(User user) {
+        PendingSignup pending = new PendingSignup(user);
+        return running && queue.offer(pending) ? pending : null;
+    }
+
+    /**
+     * Take back a signup the writer has not started on, so it is never inserted
+     * @param pending signup returned by offer
+     * @return false if the writer already has it; its result then reports the outcome
+     */
+    boolean withdraw(PendingSignup pending) {
+        if (!pending.settled.compareAndSet(false, true)) {
+            return false;
+        }
+        queue.remove(pending);
+        pending.result.cancel(false);
+        return true;
+    }
+
+    /**
+     * Stop accepting signups and flush whatever is still queued
+     */
+    void shutdown() {
+        running = false; // Writer notices within one poll interval
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<PendingSignup> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSignup first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    PendingSignup next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false; // Flush what we have, then drain the rest
+            }
+            batch.removeIf(pending -> !pending.settled.compareAndSet(false, true)); // Withdrawn while queued
+            if (!batch.isEmpty()) {
+                try {
+                    flusher.accept(batch);
+                } catch (RuntimeException e) {
+                    log.error("Error flushing signup batch: {}", e.getMessage());
+                    batch.forEach(pending -> pending.result.completeExceptionally(e));
+                }
+                batch.clear();
+            }
+        }
+    }
+}
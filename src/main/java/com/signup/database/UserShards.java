@@ -0,0 +1,162 @@
+package com.signup.database;
+
+import com.signup.util.EmailUtil;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits the users table across shards by a stable hash of the normalized email.
+ *
+ * Shard 0 is the primary datasource (and its replicas, via {@link ReadWriteRouter});
+ * datasource.shards.urls adds shards 1..N-1. Owners are picked by rendezvous
+ * hashing, so appending a shard moves only about 1/N of the users; run
+ * {@link ShardRebalancer} afterwards to move them. With no extra shards every
+ * call resolves to the router, exactly as before.
+ */
+@Component
+public class UserShards {
+
+    private static final Logger log = LoggerFactory.getLogger(UserShards.class);
+
+    @Autowired
+    private ReadWriteRouter router;
+
+    // Comma-separated JDBC URLs of shards 1..N-1; only ever append to this list
+    @Value("${datasource.shards.urls:}")
+    private String shardUrls;
+
+    @Value("${datasource.shards.username:}")
+    private String shardUsername;
+
+    @Value("${datasource.shards.password:}")
+    private String shardPassword;
+
+    @Value("${datasource.shards.pool-size:10}")
+    private int shardPoolSize;
+
+    @Value("${spring.datasource.hikari.connection-timeout:30000}")
+    private long connectionTimeout;
+
+    private final List<HikariDataSource> extraShards = new ArrayList<>();
+
+    @PostConstruct
+    void init() {
+        for (String url : shardUrls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("shard-" + (extraShards.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(shardUsername);
+            config.setPassword(shardPassword);
+            config.setMaximumPoolSize(shardPoolSize);
+            config.setConnectionTimeout(connectionTimeout);
+            extraShards.add(new HikariDataSource(config));
+        }
+        if (isSharded()) {
+            log.info("Users table split across {} shards", count());
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        extraShards.forEach(HikariDataSource::close);
+    }
+
+    /**
+     * @return true if more than one shard is configured
+     */
+    public boolean isSharded() {
+        return !extraShards.isEmpty();
+    }
+
+    /**
+     * @return number of shards, including shard 0
+     */
+    public int count() {
+        return extraShards.size() + 1;
+    }
+
+    /**
+     * @param email user's email, in any case
+     * @return index of the shard that owns the email
+     */
+    public int shardOf(String email) {
+        if (!isSharded()) {
+            return 0;
+        }
+        long key = hash(EmailUtil.normalize(email));
+        int owner = 0;
+        long best = Long.MIN_VALUE;
+        for (int shard = 0; shard < count(); shard++) {
+            long weight = mix(key + 0x9E3779B97F4A7C15L * (shard + 1));
+            if (weight > best) {
+                best = weight;
+                owner = shard;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * @param shard shard index
+     * @return DataSource for writes (and reads that must be current) on that shard
+     */
+    public DataSource forWrite(int shard) {
+        return shard == 0 ? router.forWrite() : extraShards.get(shard - 1);
+    }
+
+    /**
+     * @param shard shard index
+     * @param key lookup key for read-your-writes pinning, may be null
+     * @return DataSource for read-only lookups on that shard
+     */
+    public DataSource forRead(int shard, String key) {
+        return shard == 0 ? router.forRead(key) : extraShards.get(shard - 1);
+    }
+
+    /**
+     * @return write DataSource of every shard, shard 0 first
+     */
+    public List<DataSource> allForWrite() {
+        List<DataSource> all = new ArrayList<>(count());
+        for (int shard = 0; shard < count(); shard++) {
+            all.add(forWrite(shard));
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    // FNV-1a over UTF-8; unlike String.hashCode this is 64 bits wide
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    // MurmurHash3 finalizer, so neighbouring shard seeds give unrelated weights
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,30 @@
+package com.signup.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class IntrospectRequest {
+
+    @NotEmpty(message = "At least one token is required")
+    @Size(max = 100, message = "At most 100 tokens per request")
+    private List<String> tokens;
+
+    // Default constructor
+    public IntrospectRequest() {}
+
+    // Constructor with fields
+    public IntrospectRequest(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    // Getters and Setters
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+}
@@ -0,0 +1,60 @@
+package com.signup.dto;
+
+import java.util.List;
+
+public class IntrospectResponse {
+    private List<TokenStatus> results;
+
+    public IntrospectResponse() {}
+
+    public IntrospectResponse(List<TokenStatus> results) {
+        this.results = results;
+    }
+
+    public List<TokenStatus> getResults() {
+        return results;
+    }
+
+    public void setResults(List<TokenStatus> results) {
+        this.results = results;
+    }
+
+    // One entry per requested token, in request order; subject and exp are null unless active
+    public static class TokenStatus {
+        private boolean active;
+        private String subject;
+        private Long exp;
+
+        public TokenStatus() {}
+
+        public TokenStatus(boolean active, String subject, Long exp) {
+            this.active = active;
+            this.subject = subject;
+            this.exp = exp;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public void setSubject(String subject) {
+            this.subject = subject;
+        }
+
+        public Long getExp() {
+            return exp;
+        }
+
+        public void setExp(Long exp) {
+            this.exp = exp;
+        }
+    }
+}
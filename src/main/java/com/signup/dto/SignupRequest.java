@@ -24,7 +24,7 @@ public class SignupRequest {
     @Size(min = 2, max = 50, message = "Name must be between 2 and 50 characters")
     private String name;
 
-    @Schema(description = "10-digit contact number", example = "9876543210")
+    @Schema(description = "10-digit contact number, not already registered to another account", example = "9876543210")
     @NotBlank(message = "Contact number is required")
     @Pattern(regexp = "^[0-9]{10}$", message = "Contact number must be exactly 10 digits")
     private String contactNumber;
@@ -0,0 +1,40 @@
+package com.signup.dto;
+
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class UserLookupRequest {
+
+    @Size(max = 500, message = "At most 500 ids per request")
+    private List<Long> ids;
+
+    @Size(max = 500, message = "At most 500 emails per request")
+    private List<String> emails;
+
+    // Default constructor
+    public UserLookupRequest() {}
+
+    // Constructor with fields
+    public UserLookupRequest(List<Long> ids, List<String> emails) {
+        this.ids = ids;
+        this.emails = emails;
+    }
+
+    // Getters and Setters
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<String> getEmails() {
+        return emails;
+    }
+
+    public void setEmails(List<String> emails) {
+        this.emails = emails;
+    }
+}
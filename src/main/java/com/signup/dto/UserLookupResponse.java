@@ -0,0 +1,22 @@
+package com.signup.dto;
+
+import java.util.List;
+
+public class UserLookupResponse {
+    // One entry per requested id, then per requested email, in request order; null where there is no such user
+    private List<ProfileResponse.UserProfile> users;
+
+    public UserLookupResponse() {}
+
+    public UserLookupResponse(List<ProfileResponse.UserProfile> users) {
+        this.users = users;
+    }
+
+    public List<ProfileResponse.UserProfile> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<ProfileResponse.UserProfile> users) {
+        this.users = users;
+    }
+}
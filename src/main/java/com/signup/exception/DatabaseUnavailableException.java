@@ -0,0 +1,28 @@
+package com.signup.exception;
+
+/**
+ * The database could not answer: it failed, timed out, or its circuit breaker
+ * is open. Distinct from "not found", which lookups report with an empty
+ * result; handled as 503 so clients retry instead of acting on a false answer.
+ */
+public class DatabaseUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Reason {
+        CIRCUIT_OPEN, // Failing fast after repeated failures
+        TIMEOUT,      // Query or connection wait exceeded its limit
+        ERROR         // Any other database failure
+    }
+
+    private final Reason reason;
+
+    public DatabaseUnavailableException(String operation, Reason reason, Throwable cause) {
+        super(operation + ": database unavailable (" + reason.name().toLowerCase().replace('_', ' ') + ")", cause);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
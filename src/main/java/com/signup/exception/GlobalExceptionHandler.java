@@ -1,17 +1,37 @@
 package com.signup.exception;
 
+import com.signup.config.ResponseJsonConverter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final byte[] DATABASE_UNAVAILABLE =
+            ResponseJsonConverter.encodeStatus(false, "Service temporarily unavailable. Please retry shortly.");
+
+    /**
+     * Same 503 as the handler, for filters that run before the controllers
+     * @param response response to write to
+     */
+    public static void writeDatabaseUnavailable(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(DATABASE_UNAVAILABLE.length);
+        response.getOutputStream().write(DATABASE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -23,6 +43,15 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    // The database failed or is being spared: tell clients to retry rather than report a wrong answer
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<byte[]> handleDatabaseUnavailable(DatabaseUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header("Retry-After", "1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(DATABASE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception ex) {
         Map<String, String> error = new HashMap<>();
@@ -0,0 +1,24 @@
+package com.signup.model;
+
+import java.sql.Timestamp;
+
+/**
+ * Version of a user's profile, derived from the row's updated_at. Cheap to
+ * look up and compare, so an unchanged profile can be answered with 304.
+ *
+ * @param userId user id, so versions of different users never match
+ * @param updatedAtMillis updated_at in epoch milliseconds
+ */
+public record ProfileVersion(long userId, long updatedAtMillis) {
+
+    public static ProfileVersion of(User user) {
+        return new ProfileVersion(user.getId(), Timestamp.valueOf(user.getUpdatedAt()).getTime());
+    }
+
+    /**
+     * @return entity tag for the profile response
+     */
+    public String etag() {
+        return "\"" + Long.toString(userId, 36) + "-" + Long.toString(updatedAtMillis, 36) + "\"";
+    }
+}
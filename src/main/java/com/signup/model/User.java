@@ -10,6 +10,7 @@ public class User {
     private String password;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private long tokenEpoch;
 
     // Default constructor
     public User() {
@@ -80,6 +81,14 @@ public class User {
         return updatedAt;
     }
 
+    public long getTokenEpoch() {
+        return tokenEpoch;
+    }
+
+    public void setTokenEpoch(long tokenEpoch) {
+        this.tokenEpoch = tokenEpoch;
+    }
+
     @Override
     public String toString() {
         return "User{" +
@@ -90,6 +99,7 @@ public class User {
                 ", password='" + password + '\'' +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", tokenEpoch=" + tokenEpoch +
                 '}';
     }
 
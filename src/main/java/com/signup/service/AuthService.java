@@ -1,36 +1,181 @@
 package com.signup.service;
 
 import com.signup.database.DatabaseService;
+import com.signup.database.SessionJournal;
 import com.signup.dto.AuthResponse;
 import com.signup.dto.LoginRequest;
 import com.signup.dto.SignupRequest;
+import com.signup.model.ProfileVersion;
 import com.signup.model.User;
+import com.signup.util.EmailUtil;
 import com.signup.util.JwtUtil;
 import com.signup.util.PasswordUtil;
+import com.signup.util.TokenClaims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import com.signup.dto.AuthResponse.UserInfo;
+import com.signup.dto.IntrospectResponse.TokenStatus;
 
 @Service
+@Lazy(false) // Owns a @Scheduled task, which lazy initialization would never start
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
     @Autowired
     private DatabaseService databaseService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    // Store the latest access token for each user (in-memory)
-    private final Map<String, String> userTokenStore = new ConcurrentHashMap<>();
-    
-    // Store refresh tokens for each user (in-memory)
-    private final Map<String, String> userRefreshTokenStore = new ConcurrentHashMap<>();
+    @Autowired
+    private SessionJournal sessionJournal;
+
+    @Autowired
+    private RevocationFeed revocationFeed;
+
+    // Current revocation epoch per user, loaded lazily from the users table.
+    // Only tokens carrying the current epoch are valid, so login, refresh and
+    // logout revoke every older token by advancing a single number.
+    // Advances made by other instances arrive through syncEpochs().
+    private final Map<String, Long> userEpochStore = new ConcurrentHashMap<>();
+
+    // User id -> email for compact tokens, whose subject is the id (ids and emails never change)
+    private final Map<Long, String> userIdEmailStore = new ConcurrentHashMap<>();
+
+    // Bumped whenever cached epochs are advanced or dropped by a sync or a global revocation,
+    // so a lazy load that read the database before it does not cache what it read
+    private final AtomicLong epochGeneration = new AtomicLong();
+
+    @Value("${auth.epoch-cache.max-entries:100000}")
+    private int maxCachedEpochs;
+
+    @Value("${auth.user-id-cache.max-entries:100000}")
+    private int maxCachedUserIds;
+
+    // Epoch changes are re-read this far back, for updates that committed out of order
+    @Value("${auth.epoch-sync.overlap-ms:5000}")
+    private long epochSyncOverlapMillis;
+
+    // Most changes read per shard in one sync; the rest (e.g. after a global revocation) follow in later syncs
+    @Value("${auth.epoch-sync.max-changes:10000}")
+    private int epochSyncMaxChanges;
+
+    // Per-shard positions in the epoch_changed_at history; null until sessions are restored
+    private volatile long[] epochWatermarks;
+
+    // Per-shard cursors into changes past the watermarks that did not fit in the last sync
+    private volatile DatabaseService.EpochCursor[] epochCursors;
+
+    // Below this many tokens per share, handing work to another thread costs more than it saves
+    private static final int MIN_INTROSPECTION_SHARE = 8;
+
+    // Helpers for batch introspection, besides the request thread (default: one per extra core)
+    @Value("${auth.introspection.threads:-1}")
+    private int introspectionThreads;
+
+    private ExecutorService introspectionPool;
+
+    @PostConstruct
+    void startIntrospectionPool() {
+        if (introspectionThreads < 0) {
+            introspectionThreads = Runtime.getRuntime().availableProcessors() - 1;
+        }
+        if (introspectionThreads > 0) {
+            AtomicInteger count = new AtomicInteger();
+            introspectionPool = Executors.newFixedThreadPool(introspectionThreads, task -> {
+                Thread thread = new Thread(task, "introspect-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    void stopIntrospectionPool() {
+        if (introspectionPool != null) {
+            introspectionPool.shutdown();
+        }
+    }
 
     /**
-     * Register a new user
+     * Reload the epoch and user id caches from the session journal, so a
+     * restart does not send every active user's first request to the database
+     */
+    public void restoreSessions() {
+        // Taken first, so changes made while the journal is replayed are synced afterwards
+        DatabaseService.EpochChanges start = databaseService.findTokenEpochChanges(null, null, 0, epochSyncMaxChanges);
+        sessionJournal.restore(userEpochStore, userIdEmailStore);
+        trim(userEpochStore, maxCachedEpochs);
+        trim(userIdEmailStore, maxCachedUserIds);
+        epochWatermarks = start != null ? start.watermarks() : new long[0]; // Empty: the first sync starts over
+    }
+
+    /**
+     * Pick up epochs advanced by other instances, so a logout or revocation
+     * there also rejects the old tokens here within one interval
+     */
+    @Scheduled(fixedDelayString = "${auth.epoch-sync.interval-ms:1000}")
+    public void syncEpochs() {
+        long[] watermarks = epochWatermarks;
+        if (watermarks == null) {
+            return; // The schema may not exist yet
+        }
+        DatabaseService.EpochChanges changes;
+        try {
+            changes = databaseService.findTokenEpochChanges(watermarks, epochCursors, epochSyncOverlapMillis,
+                    epochSyncMaxChanges);
+        } catch (RuntimeException e) {
+            log.warn("Epoch sync failed: {}", e.getMessage());
+            return;
+        }
+        if (changes == null) {
+            return; // Retried from the same watermarks and cursors next time
+        }
+        if (watermarks.length != changes.watermarks().length) {
+            // A shard was added: reload every epoch lazily
+            epochGeneration.incrementAndGet();
+            userEpochStore.clear();
+            sessionJournal.recordEpochsCleared();
+        } else if (!changes.epochs().isEmpty()) {
+            epochGeneration.incrementAndGet();
+            changes.epochs().forEach((email, epoch) -> {
+                Long cached = userEpochStore.get(email);
+                if (cached != null && cached < epoch
+                        && userEpochStore.computeIfPresent(email, (key, current) -> Math.max(current, epoch)) != null) {
+                    sessionJournal.recordEpoch(email, epoch);
+                }
+            });
+        }
+        sessionJournal.recordWatermarks(changes.watermarks()); // After the epochs it covers
+        epochCursors = changes.cursors();
+        epochWatermarks = changes.watermarks();
+    }
+
+    /**
+     * Register a new user; the email (in any case) and the contact number must both be unused
      * @param signupRequest signup request data
      * @return true if registration is successful, false otherwise
      */
@@ -40,8 +185,15 @@ public class AuthService {
             return false;
         }
 
-        // Check if user already exists
-        if (databaseService.emailExists(signupRequest.getEmail())) {
+        // Check if user already exists, whatever case or spacing the email was typed in
+        String email = EmailUtil.normalize(signupRequest.getEmail());
+        if (databaseService.emailExists(email)) {
+            return false;
+        }
+
+        // One account per contact number, as for emails: a number already registered is refused.
+        // Answered from the in-memory registry where it can be
+        if (databaseService.contactNumberExists(signupRequest.getContactNumber())) {
             return false;
         }
 
@@ -49,7 +201,7 @@ public class AuthService {
         User user = new User(
             signupRequest.getName(),
             signupRequest.getContactNumber(),
-            signupRequest.getEmail(),
+            email,
             PasswordUtil.hashPassword(signupRequest.getPassword())
         );
 
@@ -63,7 +215,7 @@ public class AuthService {
      */
     public AuthResponse login(LoginRequest loginRequest) {
         // Find user by email
-        var userOptional = databaseService.findUserByEmail(loginRequest.getEmail());
+        var userOptional = databaseService.findUserByEmail(EmailUtil.normalize(loginRequest.getEmail()));
         
         if (userOptional.isEmpty()) {
             return new AuthResponse(false, "Invalid email or password", null, null, null);
@@ -76,12 +228,20 @@ public class AuthService {
             return new AuthResponse(false, "Invalid email or password", null, null, null);
         }
 
+        // New epoch invalidates tokens from any previous login
+        String email = EmailUtil.normalize(user.getEmail()); // Rows from before normalization may differ in case
+        long epoch = advanceEpoch(email, null);
+        if (epoch < 0) {
+            return new AuthResponse(false, "Invalid email or password", null, null, null); // Deleted meanwhile
+        }
+        if (user.getId() != null && userIdEmailStore.put(user.getId(), email) == null) {
+            sessionJournal.recordUser(user.getId(), email);
+            trim(userIdEmailStore, maxCachedUserIds);
+        }
+
         // Generate JWT token and refresh token
-        String accessToken = jwtUtil.generateToken(user.getEmail());
-        String refreshToken = jwtUtil.generateRefreshToken(user.getEmail());
-        
-        userTokenStore.put(user.getEmail(), accessToken);
-        userRefreshTokenStore.put(user.getEmail(), refreshToken);
+        String accessToken = jwtUtil.generateToken(email, user.getId(), epoch);
+        String refreshToken = jwtUtil.generateRefreshToken(email, user.getId(), epoch);
         
         return new AuthResponse(true, "Login successful", accessToken, refreshToken, new UserInfo(user.getEmail(), user.getName()));
     }
@@ -97,29 +257,31 @@ public class AuthService {
         }
 
         // Validate refresh token
-        if (!jwtUtil.validateRefreshToken(refreshToken)) {
+        TokenClaims claims = jwtUtil.decode(refreshToken);
+        if (claims == null || !claims.isRefresh()) {
             return new AuthResponse(false, "Invalid or expired refresh token", null, null, null);
         }
 
         // Extract email from refresh token
-        String email = jwtUtil.extractEmailFromRefreshToken(refreshToken);
+        String email = resolveEmail(claims);
         if (email == null) {
             return new AuthResponse(false, "Invalid refresh token", null, null, null);
         }
 
-        // Check if refresh token matches stored one
-        String storedRefreshToken = userRefreshTokenStore.get(email);
-        if (storedRefreshToken == null || !storedRefreshToken.equals(refreshToken)) {
+        // Check if refresh token belongs to the current epoch
+        long tokenEpoch = claims.getEpoch();
+        if (tokenEpoch < 0 || tokenEpoch != currentEpoch(email)) {
             return new AuthResponse(false, "Invalid refresh token", null, null, null);
         }
 
-        // Generate new access token AND new refresh token (rotation)
-        String newAccessToken = jwtUtil.generateToken(email);
-        String newRefreshToken = jwtUtil.generateRefreshToken(email);
-        
-        // Update both tokens in storage
-        userTokenStore.put(email, newAccessToken);
-        userRefreshTokenStore.put(email, newRefreshToken);
+        // Advancing the epoch revokes the used refresh token and its access token (rotation)
+        long epoch = advanceEpoch(email, refreshToken);
+        if (epoch < 0) {
+            return new AuthResponse(false, "Invalid refresh token", null, null, null);
+        }
+        Long userId = claims.getUserId() >= 0 ? claims.getUserId() : null;
+        String newAccessToken = jwtUtil.generateToken(email, userId, epoch);
+        String newRefreshToken = jwtUtil.generateRefreshToken(email, userId, epoch);
 
         return new AuthResponse(true, "Token refreshed successfully", newAccessToken, newRefreshToken, null);
     }
@@ -132,12 +294,38 @@ public class AuthService {
     public AuthResponse logout(String token) {
         String email = getUserEmailFromToken(token);
         if (email != null) {
-            userTokenStore.remove(email); // Invalidate access token
-            userRefreshTokenStore.remove(email); // Invalidate refresh token
+            revokeUserSessions(email, token); // Invalidate access and refresh tokens
         }
         return new AuthResponse(true, "Logout successful", null, null);
     }
 
+    /**
+     * Revoke every token issued to a user (e.g. after a password change)
+     * @param email user email
+     */
+    public void revokeUserSessions(String email) {
+        revokeUserSessions(email, null);
+    }
+
+    private void revokeUserSessions(String email, String token) {
+        if (currentEpoch(email) >= 0) {
+            advanceEpoch(email, token);
+        }
+    }
+
+    /**
+     * Revoke every token issued to every user
+     * @return true if the revocation was persisted
+     */
+    public boolean revokeAllSessions() {
+        boolean revoked = databaseService.incrementAllTokenEpochs();
+        epochGeneration.incrementAndGet();
+        userEpochStore.clear(); // Reloaded lazily with the advanced epochs
+        sessionJournal.recordEpochsCleared();
+        revocationFeed.publishAllRevoked();
+        return revoked;
+    }
+
     /**
      * Forgot password - send reset token to user's email
      * @param forgotPasswordRequest forgot password request
@@ -210,8 +398,7 @@ public class AuthService {
 //
 //        if (databaseService.updateUser(user)) {
 //            // Invalidate any existing sessions for this user
-//            userTokenStore.remove(user.getEmail());
-//            userRefreshTokenStore.remove(user.getEmail());
+//            revokeUserSessions(user.getEmail());
 //
 //            return new PasswordResetResponse(true, "Password reset successfully");
 //        } else {
@@ -225,11 +412,162 @@ public class AuthService {
      * @return true if token is valid and is the latest for the user
      */
     public boolean validateToken(String token) {
-        if (!jwtUtil.validateToken(token) || jwtUtil.isTokenExpired(token)) {
-            return false;
+        return activeUser(jwtUtil.decode(token)) != null; // decode rejects bad signatures and expired tokens
+    }
+
+    /**
+     * Check a batch of access tokens, as validateToken would, spread across cores
+     * @param tokens JWT tokens
+     * @return status of each token, in the same order
+     */
+    public List<TokenStatus> introspect(List<String> tokens) {
+        TokenStatus[] results = new TokenStatus[tokens.size()];
+        int shares = Math.min(introspectionThreads + 1, (tokens.size() + MIN_INTROSPECTION_SHARE - 1) / MIN_INTROSPECTION_SHARE);
+        List<CompletableFuture<Void>> pending = new ArrayList<>(shares);
+        for (int share = 1; share < shares; share++) {
+            int from = tokens.size() * share / shares;
+            int to = tokens.size() * (share + 1) / shares;
+            try {
+                pending.add(CompletableFuture.runAsync(() -> introspect(tokens, results, from, to), introspectionPool));
+            } catch (RejectedExecutionException e) {
+                introspect(tokens, results, from, to); // Shutting down
+            }
+        }
+        introspect(tokens, results, 0, tokens.size() / Math.max(shares, 1)); // The request thread takes the first share
+        try {
+            pending.forEach(CompletableFuture::join);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause; // e.g. DatabaseUnavailableException, so it is answered as such
+            }
+            throw e;
+        }
+        return Arrays.asList(results);
+    }
+
+    private void introspect(List<String> tokens, TokenStatus[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            String token = tokens.get(i);
+            TokenClaims claims = token != null && !token.isEmpty() ? jwtUtil.decode(token) : null;
+            String email = activeUser(claims);
+            results[i] = email != null
+                    ? new TokenStatus(true, email, claims.getExpiration() >= 0 ? claims.getExpiration() : null)
+                    : new TokenStatus(false, null, null);
+        }
+    }
+
+    // Email of the user an access token belongs to, or null unless it carries the user's current epoch
+    private String activeUser(TokenClaims claims) {
+        if (claims == null || claims.isRefresh()) {
+            return null;
         }
-        String email = jwtUtil.extractEmail(token);
-        return token.equals(userTokenStore.get(email)); // Only latest token is valid
+        String email = resolveEmail(claims);
+        long tokenEpoch = claims.getEpoch();
+        return email != null && tokenEpoch >= 0 && tokenEpoch == currentEpoch(email) ? email : null; // Only latest epoch is valid
+    }
+
+    // Normalized email for the token subject; compact tokens carry the user id instead
+    private String resolveEmail(TokenClaims claims) {
+        long userId = claims.getUserId();
+        if (userId < 0) {
+            return EmailUtil.normalize(claims.getSubject());
+        }
+        String email = userIdEmailStore.get(userId);
+        if (email != null) {
+            return email;
+        }
+        // Loaded outside the map, so a slow query never blocks other users hashed to the same bin
+        email = EmailUtil.normalize(databaseService.findEmailById(userId));
+        if (email != null && userIdEmailStore.putIfAbsent(userId, email) == null) {
+            sessionJournal.recordUser(userId, email);
+            trim(userIdEmailStore, maxCachedUserIds);
+        }
+        return email;
+    }
+
+    // Current epoch for a user, loaded from the database on first use (-1 if unknown)
+    private long currentEpoch(String email) {
+        Long cached = userEpochStore.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = epochGeneration.get();
+        long epoch = databaseService.findTokenEpoch(email); // Outside the map, as in resolveEmail
+        if (epoch < 0) {
+            return epoch; // Not cached, so a user created later is found
+        }
+        long current = userEpochStore.merge(email, epoch, Math::max);
+        if (epochGeneration.get() != generation) {
+            // A sync or global revocation ran meanwhile and may have missed what was read; read again
+            userEpochStore.remove(email, current);
+            return currentEpoch(email);
+        }
+        if (current == epoch) {
+            sessionJournal.recordEpoch(email, epoch);
+            trim(userEpochStore, maxCachedEpochs);
+        }
+        return current;
+    }
+
+    // Drop entries past the bound; any will do, as each is reloaded from the database on its next use
+    private static <K, V> void trim(Map<K, V> cache, int maxEntries) {
+        if (cache.size() <= maxEntries) {
+            return;
+        }
+        Iterator<K> keys = cache.keySet().iterator();
+        while (cache.size() > maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    // Advance the user's epoch in the database, cache and announce what it stored; returns the new epoch,
+    // or -1 if there is no such user. revokedToken is the token whose use caused the advance, if any.
+    private long advanceEpoch(String email, String revokedToken) {
+        long epoch = databaseService.advanceTokenEpoch(email);
+        if (epoch < 0) {
+            return epoch;
+        }
+        userEpochStore.merge(email, epoch, Math::max); // A concurrent advance may already have cached a later one
+        sessionJournal.recordEpoch(email, epoch);
+        trim(userEpochStore, maxCachedEpochs);
+        revocationFeed.publishEpoch(email, epoch, revokedToken);
+        return epoch;
+    }
+
+    /**
+     * Profile of a user for display, falling back to the last-known profile while the database is unavailable
+     * @param email user email
+     * @return user without password, possibly stale
+     */
+    public Optional<User> getProfile(String email) {
+        return databaseService.findUserByEmailOrLastKnown(email);
+    }
+
+    /**
+     * Version of a user's profile, for answering conditional profile requests
+     * @param email user email
+     * @return profile version, or null if there is no such user
+     */
+    public ProfileVersion getProfileVersion(String email) {
+        return databaseService.findProfileVersion(email);
+    }
+
+    /**
+     * Look up many users at once for internal services
+     * @param ids user ids
+     * @param emails user emails, in any case
+     * @return users for the ids, then for the emails, in request order; null where there is no such user
+     */
+    public List<User> lookupUsers(List<Long> ids, List<String> emails) {
+        List<User> users = new ArrayList<>(ids.size() + emails.size());
+        if (!ids.isEmpty()) {
+            users.addAll(databaseService.findUsersById(ids));
+        }
+        if (!emails.isEmpty()) {
+            users.addAll(databaseService.findUsersByEmail(emails));
+        }
+        return users;
     }
 
     /**
@@ -238,9 +576,7 @@ public class AuthService {
      * @return user email or null if invalid
      */
     public String getUserEmailFromToken(String token) {
-        if (jwtUtil.validateToken(token) && !jwtUtil.isTokenExpired(token)) {
-            return jwtUtil.extractEmail(token);
-        }
-        return null;
+        TokenClaims claims = jwtUtil.decode(token);
+        return claims != null ? resolveEmail(claims) : null;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.signup.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.signup.config.ResponseJsonConverter;
+import com.signup.database.DatabaseService;
+import com.signup.dto.AuthResponse;
+import com.signup.dto.IntrospectRequest;
+import com.signup.dto.LoginRequest;
+import com.signup.dto.ProfileResponse;
+import com.signup.dto.SignupRequest;
+import com.signup.util.JwtUtil;
+import com.signup.util.PasswordUtil;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NativeDetector;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Runs the request hot paths with synthetic data before the instance reports
+ * ready, so the first real requests meet compiled code instead of the
+ * interpreter.
+ *
+ * Each round signs and decodes tokens, binds and validates request DTOs and
+ * encodes responses. Up to warmup.io-iterations rounds also run user lookups
+ * and row mapping and send a login and a profile request over loopback, so
+ * Tomcat, the filters and Spring MVC are included; those start only once the
+ * schema is ready (it may still be initialising in the background), and a few
+ * hundred are enough, as each is mostly waiting on I/O. Password hashing runs
+ * in the first rounds only: one hash is long enough for its loop to be
+ * compiled. Every address is under the reserved .invalid domain and every
+ * lookup is read-only, so no user data is touched. Rounds stop at
+ * warmup.iterations or warmup.max-duration-ms, whichever comes first;
+ * readiness follows once startup runners return.
+ */
+@Component
+public class JitWarmUp {
+
+    private static final Logger log = LoggerFactory.getLogger(JitWarmUp.class);
+
+    private static final int ADDRESSES = 8;       // Synthetic users cycled through, so caches see hits and misses
+    private static final int HASHING_ROUNDS = 3;  // BCrypt rounds; each takes tens of milliseconds
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.iterations:3000}")
+    private int iterations;
+
+    // Rounds that also query the database and call the server
+    @Value("${warmup.io-iterations:200}")
+    private int ioIterations;
+
+    @Value("${warmup.max-duration-ms:15000}")
+    private long maxDurationMillis;
+
+    private final ResponseJsonConverter converter = new ResponseJsonConverter();
+
+    /**
+     * Run warm-up rounds until the iteration or time budget is spent. Failures end the
+     * warm-up early but never fail startup.
+     */
+    public void run() {
+        if (!enabled || NativeDetector.inNativeImage()) {
+            return; // Native images are compiled ahead of time
+        }
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        String base = port != null ? "http://localhost:" + port + "/api/auth" : null;
+
+        long start = System.nanoTime();
+        long deadline = start + maxDurationMillis * 1_000_000L;
+        int round = 0;
+        int ioRounds = 0;
+        try {
+            for (; round < iterations && System.nanoTime() < deadline; round++) {
+                String email = "warmup-" + (round % ADDRESSES) + "@warmup.invalid";
+                warmTokens(email);
+                warmJson(email);
+                if (round < HASHING_ROUNDS) {
+                    PasswordUtil.verifyPassword("Warmup-pass1", PasswordUtil.hashPassword("Warmup-pass1"));
+                }
+                if (ioRounds < ioIterations && databaseService.isSchemaReady()) {
+                    databaseService.warmUp(email);
+                    if (base != null) {
+                        warmHttp(base, email);
+                    }
+                    ioRounds++;
+                }
+            }
+            log.info("JIT warm-up: {} rounds ({} with database and HTTP) in {} ms",
+                    round, ioRounds, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("JIT warm-up stopped after {} rounds: {}", round, e.toString());
+        }
+    }
+
+    private void warmTokens(String email) {
+        String access = jwtUtil.generateToken(email, null, 0);
+        String refresh = jwtUtil.generateRefreshToken(email, null, 0);
+        jwtUtil.decode(access);
+        jwtUtil.decode(refresh);
+        authService.validateToken(access); // Unknown user, so never valid
+        authService.introspect(List.of(access, refresh));
+    }
+
+    private void warmJson(String email) throws IOException {
+        SignupRequest signup = objectMapper.readValue("{\"name\":\"Warm Up\",\"contactNumber\":\"0000000000\",\"email\":\""
+                + email + "\",\"password\":\"Warmup-pass1\"}", SignupRequest.class);
+        validator.validate(signup);
+        validator.validate(objectMapper.readValue(
+                "{\"email\":\"" + email + "\",\"password\":\"Warmup-pass1\"}", LoginRequest.class));
+        validator.validate(objectMapper.readValue("{\"tokens\":[\"a.b.c\"]}", IntrospectRequest.class));
+
+        encode(new AuthResponse(true, "Login successful", "a.b.c", "d.e.f", new AuthResponse.UserInfo(email, "Warm Up")));
+        encode(new ProfileResponse(true, "Profile fetched successfully",
+                new ProfileResponse.UserProfile(0L, "Warm Up", "0000000000", email)));
+    }
+
+    // Write a response body as Spring MVC would, into nothing
+    private void encode(Object body) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        converter.write(body, MediaType.APPLICATION_JSON, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return OutputStream.nullOutputStream();
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        });
+    }
+
+    // Keep-alive requests through Tomcat, the filters and Spring MVC; the answers are 401 and 403
+    private void warmHttp(String base, String email) throws IOException {
+        send(base + "/login", "POST", null, "{\"email\":\"" + email + "\",\"password\":\"Warmup-pass1\"}");
+        send(base + "/profile", "GET", "Bearer " + jwtUtil.generateToken(email, null, 0), null);
+    }
+
+    private static void send(String url, String method, String authorization, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(1000);
+        connection.setReadTimeout(5000);
+        if (authorization != null) {
+            connection.setRequestProperty("Authorization", authorization);
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in != null) {
+            try (in) {
+                in.readAllBytes(); // Drained, so the connection is reused
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.signup.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.signup.util.EmailUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Ordered feed of revocations for caches outside this service.
+ *
+ * Every epoch advance (login, refresh rotation, logout) becomes an "epoch"
+ * event: tokens of that subject with a lower "ep" claim are revoked. The
+ * subject is never the email itself but its fingerprint (base64url of the
+ * first 16 bytes of the SHA-256 of the normalized email), which a cache
+ * compares with the fingerprint of a token's sub. When a specific token
+ * caused the advance, its fingerprint is included the same way. A global
+ * revocation is an "all" event.
+ *
+ * Events carry increasing sequence numbers, seeded from the start time so a
+ * restarted instance never reuses one, and the last revocation-feed.buffer-size
+ * are kept for replay. Sequences belong to the instance that issued them:
+ * every instance publishes only its own revocations, under its own numbering,
+ * so a subscriber needs a stream (and a cursor) per instance and must never
+ * resume one instance's stream from another's Last-Event-ID. A subscriber
+ * resuming from a sequence that is no longer buffered, or beyond the last
+ * one issued, first gets a "reset" event and must drop everything it cached.
+ * One dispatcher thread writes to all subscribers, so request threads never
+ * wait on a slow client.
+ */
+@Component
+public class RevocationFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationFeed.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    @Value("${revocation-feed.buffer-size:10000}")
+    private int bufferSize;
+
+    // Streams end after this long; EventSource clients reconnect with Last-Event-ID
+    @Value("${revocation-feed.stream-timeout-ms:1800000}")
+    private long streamTimeout;
+
+    // Comment line sent to idle streams so proxies keep them open
+    @Value("${revocation-feed.heartbeat-ms:15000}")
+    private long heartbeat;
+
+    private record Event(long sequence, String type, String json) {}
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        long cursor; // Last sequence delivered
+        long lastSent = System.currentTimeMillis();
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+
+    private final long firstSequence = System.currentTimeMillis() * 1000;
+
+    // Guarded by this
+    private Event[] ring;
+    private long head = firstSequence - 1; // Last sequence published
+    private boolean wake;                  // Set by publish and subscribe, cleared by the dispatcher
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private Thread dispatcher;
+    private volatile boolean running = true;
+
+    @PostConstruct
+    void start() {
+        ring = new Event[bufferSize];
+        dispatcher = new Thread(this::dispatch, "revocation-feed");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * @param email normalized email of the user; only its fingerprint is published
+     * @param epoch new epoch; the user's tokens from earlier epochs are revoked
+     * @param revokedToken token whose use caused the revocation, may be null
+     */
+    public void publishEpoch(String email, long epoch, String revokedToken) {
+        publish("epoch", encode(EmailUtil.lookupHash(email)), epoch, revokedToken != null ? fingerprint(revokedToken) : null);
+    }
+
+    // Every token issued so far is revoked
+    public void publishAllRevoked() {
+        publish("all", null, -1, null);
+    }
+
+    /**
+     * Open a stream delivering events after the given sequence, then new ones as they happen
+     * @param lastEventId last sequence the client has seen, or null to start with the next event
+     * @return SSE emitter for the response
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        long cursor;
+        synchronized (this) {
+            cursor = lastEventId != null ? lastEventId : head;
+        }
+        Subscriber subscriber = new Subscriber(emitter, cursor);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete(); // Ends the stream normally; the client reconnects with Last-Event-ID
+        });
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        synchronized (this) {
+            wake = true; // Catch the new subscriber up right away
+            notifyAll();
+        }
+        return emitter;
+    }
+
+    /**
+     * @return number of open streams
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void publish(String type, String subject, long epoch, String token) {
+        StringWriter out = new StringWriter(128);
+        synchronized (this) {
+            long sequence = head + 1;
+            try (JsonGenerator json = JSON.createGenerator(out)) {
+                json.writeStartObject();
+                json.writeNumberField("seq", sequence);
+                json.writeStringField("type", type);
+                if (subject != null) {
+                    json.writeStringField("subject", subject);
+                    json.writeNumberField("epoch", epoch);
+                    if (token != null) {
+                        json.writeStringField("token", token);
+                    }
+                }
+                json.writeNumberField("time", System.currentTimeMillis());
+                json.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Not thrown by a StringWriter
+            }
+            ring[slot(sequence)] = new Event(sequence, type, out.toString());
+            head = sequence;
+            wake = true;
+            notifyAll();
+        }
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                synchronized (this) {
+                    if (!wake) {
+                        wait(Math.max(heartbeat / 2, 100));
+                    }
+                    wake = false;
+                }
+                for (Subscriber subscriber : subscribers) {
+                    deliver(subscriber);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Revocation feed dispatch failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void deliver(Subscriber subscriber) {
+        try {
+            Event[] pending;
+            long resetTo = -1;
+            synchronized (this) {
+                long oldest = Math.max(firstSequence, head - ring.length + 1);
+                if (subscriber.cursor > head || subscriber.cursor < oldest - 1) {
+                    // Events were missed or came from another process: the client must start over
+                    resetTo = oldest - 1;
+                    subscriber.cursor = resetTo;
+                }
+                pending = new Event[(int) (head - subscriber.cursor)];
+                for (int i = 0; i < pending.length; i++) {
+                    pending[i] = ring[slot(subscriber.cursor + 1 + i)];
+                }
+            }
+            if (resetTo >= 0) {
+                send(subscriber, resetTo, "reset", "{\"seq\":" + resetTo + ",\"type\":\"reset\"}");
+            }
+            for (Event event : pending) {
+                send(subscriber, event.sequence(), event.type(), event.json());
+            }
+            if (System.currentTimeMillis() - subscriber.lastSent >= heartbeat) {
+                subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+                subscriber.lastSent = System.currentTimeMillis();
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber); // Client went away
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private static void send(Subscriber subscriber, long sequence, String name, String json) throws IOException {
+        subscriber.emitter.send(SseEmitter.event().id(Long.toString(sequence)).name(name)
+                .data(json, MediaType.APPLICATION_JSON));
+        subscriber.cursor = sequence;
+        subscriber.lastSent = System.currentTimeMillis();
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, (long) ring.length);
+    }
+
+    // First 16 bytes of SHA-256, base64url: identifies a token without revealing it
+    private static String fingerprint(String token) {
+        try {
+            return encode(Arrays.copyOf(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)), 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // Required of every JRE
+        }
+    }
+
+    private static String encode(byte[] hash) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+}
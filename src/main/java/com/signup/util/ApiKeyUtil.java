@@ -0,0 +1,30 @@
+package com.signup.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class ApiKeyUtil {
+
+    /**
+     * Check a shared API key sent by another service. Digests are compared,
+     * so the time taken reveals neither the key's content nor its length.
+     * @param expected configured key; blank means no key is set, which nothing matches
+     * @param provided key from the request, may be null
+     * @return true only if a key is configured and the request sent exactly it
+     */
+    public static boolean matches(String expected, String provided) {
+        if (expected == null || expected.isBlank() || provided == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(digest(expected), digest(provided));
+    }
+
+    private static byte[] digest(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // Required of every JRE
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.signup.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops calls to a dependency after consecutive failures.
+ *
+ * Closed: calls pass and failures are counted; a success resets the count.
+ * After failureThreshold consecutive failures the breaker opens and calls
+ * are refused for openMillis. Then a single trial call is let through
+ * (half-open): its success closes the breaker, its failure reopens it.
+ * Calls admitted before the breaker opened cannot close or reopen it.
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicBoolean trialRunning = new AtomicBoolean();
+    private volatile long openedAt; // 0 while closed
+
+    /**
+     * @param name name for logs
+     * @param failureThreshold consecutive failures that open the breaker
+     * @param openMillis how long calls are refused before a trial call
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * What a call was let through as; passed back with its outcome
+     */
+    public enum Permit {
+        REFUSED, // Breaker open: fail fast
+        CALL,    // Breaker closed: an ordinary call
+        TRIAL    // Half-open: the one call whose outcome closes or reopens the breaker
+    }
+
+    /**
+     * @return REFUSED, or the permit the call must report to onSuccess() or onFailure()
+     */
+    public Permit tryAcquire() {
+        long opened = openedAt;
+        if (opened == 0) {
+            return Permit.CALL;
+        }
+        if (System.currentTimeMillis() - opened < openMillis) {
+            return Permit.REFUSED;
+        }
+        return trialRunning.compareAndSet(false, true) ? Permit.TRIAL : Permit.REFUSED; // One trial at a time
+    }
+
+    public void onSuccess(Permit permit) {
+        failures.set(0);
+        if (permit == Permit.TRIAL) {
+            openedAt = 0;
+            log.info("Circuit {} closed", name);
+            trialRunning.set(false);
+        }
+    }
+
+    public void onFailure(Permit permit) {
+        if (permit == Permit.TRIAL) {
+            openedAt = System.currentTimeMillis(); // Trial failed: stay open for another period
+            trialRunning.set(false);
+            return;
+        }
+        if (openedAt != 0) {
+            return; // Admitted before the breaker opened; only the trial decides from here
+        }
+        if (failures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+            log.warn("Circuit {} opened after {} consecutive failures", name, failureThreshold);
+        }
+    }
+
+    /**
+     * @return true while calls are being refused or only trial calls pass
+     */
+    public boolean isOpen() {
+        return openedAt != 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.signup.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that adapts to measured latency (gradient algorithm).
+ *
+ * Latencies are averaged over short windows and compared with a baseline:
+ * the lowest window average seen, which follows higher averages only slowly,
+ * so it reflects the endpoint when it is not queueing. While the window
+ * average stays within tolerance times the baseline, the limit grows by a
+ * small queue allowance each window; once latency rises beyond that, the
+ * limit shrinks in proportion (at most by half per window). Requests over
+ * the limit are rejected at once, not queued.
+ *
+ * Acquiring is a single CAS; samples are folded in under a short lock.
+ */
+public class ConcurrencyLimiter {
+
+    private static final long WINDOW_NANOS = 100_000_000L; // Shortest window
+    private static final int WINDOW_SAMPLES = 5;            // Fewest samples per window
+    private static final double BASELINE_WINDOWS = 100;     // Windows over which the baseline rises to new averages
+    private static final double SMOOTHING = 0.2;            // Weight of each new limit estimate
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    private final LongAdder rejected = new LongAdder();
+
+    // Guarded by this
+    private double estimate;
+    private double baseline;
+    private long windowStart = System.nanoTime();
+    private long windowSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+    private long lastShortLatency;
+
+    /**
+     * @param name name for reports
+     * @param initialLimit starting limit
+     * @param minLimit lowest the limit goes
+     * @param maxLimit highest the limit goes (the bulkhead size)
+     * @param tolerance how far latency may rise over its baseline before the limit shrinks
+     */
+    public ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || tolerance < 1) {
+            throw new IllegalArgumentException("Invalid limits for " + name);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimate;
+    }
+
+    /**
+     * @return true if the caller may proceed and must call release(); false if the limit is reached
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param startNanos System.nanoTime() when the caller acquired
+     */
+    public void release(long startNanos) {
+        long now = System.nanoTime();
+        int current = inFlight.getAndDecrement();
+        sample(now - startNanos, current, now);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return number of requests rejected so far
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return average latency of the last completed window, in nanoseconds
+     */
+    public synchronized long shortLatencyNanos() {
+        return lastShortLatency;
+    }
+
+    private synchronized void sample(long latency, int concurrency, long now) {
+        windowSum += latency;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, concurrency);
+        if (windowCount < WINDOW_SAMPLES || now - windowStart < WINDOW_NANOS) {
+            return;
+        }
+        double shortLatency = (double) windowSum / windowCount;
+        int used = windowMaxInFlight;
+        lastShortLatency = (long) shortLatency;
+        windowStart = now;
+        windowSum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        // Drops at once to a faster window, rises slowly so a lasting change (e.g. slower hardware) is learned
+        baseline = baseline == 0 || shortLatency < baseline
+                ? shortLatency : baseline + (shortLatency - baseline) / BASELINE_WINDOWS;
+        if (used < estimate / 2) {
+            return; // Limit was not reached, so latency says nothing about it
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / shortLatency));
+        double queue = Math.sqrt(estimate) / 2; // Headroom that lets the limit probe upwards
+        double next = estimate * gradient + queue;
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate * (1 - SMOOTHING) + next * SMOOTHING));
+        limit = (int) estimate;
+    }
+}
@@ -0,0 +1,184 @@
+package com.signup.util;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * P-256 keys for ES256 signing mode.
+ *
+ * The signing pair and any previous public keys come from configuration so
+ * every instance signs with the same key; kids are RFC 7638 thumbprints. The
+ * public keys are published as a JWKS so other services can verify tokens
+ * without calling this one.
+ */
+@Component
+public class EcKeySet {
+
+    private static final Logger log = LoggerFactory.getLogger(EcKeySet.class);
+
+    @Value("${jwt.signing-algorithm:HS256}")
+    private String signingAlgorithm;
+
+    // Base64 PKCS#8 private key and X.509 public key of the active pair
+    @Value("${jwt.ec-private-key:}")
+    private String privateKeyValue;
+
+    @Value("${jwt.ec-public-key:}")
+    private String publicKeyValue;
+
+    // Comma-separated X.509 public keys of retired pairs, still accepted for verification
+    @Value("${jwt.ec-previous-public-keys:}")
+    private String previousPublicKeyValues;
+
+    private PrivateKey signingKey;
+    private String signingKid;
+    private Map<String, PublicKey> verificationKeys = Collections.emptyMap();
+    private Map<String, Object> jwks = Map.of("keys", List.of());
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        PublicKey publicKey = null;
+        if (privateKeyValue.isBlank() != publicKeyValue.isBlank()) {
+            // A generated pair here would sign tokens no other instance, and no restart, accepts
+            throw new IllegalStateException("jwt.ec-private-key and jwt.ec-public-key must be set together");
+        }
+        if (!privateKeyValue.isBlank()) {
+            signingKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKeyValue.trim())));
+            publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKeyValue.trim())));
+            if (!isPair(signingKey, publicKey)) {
+                throw new IllegalStateException("jwt.ec-public-key does not match jwt.ec-private-key");
+            }
+        } else if (isSigningMode()) {
+            // Instance-local pair: fine for development, but tokens die with the process
+            log.warn("jwt.ec-private-key and jwt.ec-public-key are not set; using a generated ES256 key pair");
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair pair = generator.generateKeyPair();
+            signingKey = pair.getPrivate();
+            publicKey = pair.getPublic();
+        }
+
+        Map<String, PublicKey> keys = new HashMap<>();
+        List<Map<String, Object>> jwkList = new ArrayList<>();
+        if (publicKey != null) {
+            signingKid = addKey((ECPublicKey) publicKey, keys, jwkList);
+        }
+        for (String value : previousPublicKeyValues.split(",")) {
+            if (!value.isBlank()) {
+                PublicKey previous = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(value.trim())));
+                addKey((ECPublicKey) previous, keys, jwkList);
+            }
+        }
+        verificationKeys = keys;
+        jwks = Map.of("keys", Collections.unmodifiableList(jwkList));
+    }
+
+    /**
+     * @return true if new tokens should be signed with ES256
+     */
+    public boolean isSigningMode() {
+        return "ES256".equalsIgnoreCase(signingAlgorithm);
+    }
+
+    /**
+     * @return key id of the active signing key
+     */
+    public String signingKid() {
+        return signingKid;
+    }
+
+    /**
+     * @return private key used for ES256 signing
+     */
+    public PrivateKey signingKey() {
+        return signingKey;
+    }
+
+    /**
+     * @param kid key id from a token header
+     * @return matching public key, or null if unknown
+     */
+    public PublicKey verificationKey(String kid) {
+        return verificationKeys.get(kid);
+    }
+
+    /**
+     * @return JWKS document with every public key still accepted
+     */
+    public Map<String, Object> jwks() {
+        return jwks;
+    }
+
+    // Sign a probe with the private key and check it against the public one
+    private static boolean isPair(PrivateKey privateKey, PublicKey publicKey) throws GeneralSecurityException {
+        byte[] probe = "ec-key-set".getBytes(StandardCharsets.UTF_8);
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        signer.initSign(privateKey);
+        signer.update(probe);
+        byte[] signature = signer.sign();
+        Signature verifier = Signature.getInstance("SHA256withECDSA");
+        verifier.initVerify(publicKey);
+        verifier.update(probe);
+        return verifier.verify(signature);
+    }
+
+    private static String addKey(ECPublicKey key, Map<String, PublicKey> keys, List<Map<String, Object>> jwkList)
+            throws GeneralSecurityException {
+        String x = base64Url(coordinate(key.getW().getAffineX()));
+        String y = base64Url(coordinate(key.getW().getAffineY()));
+        // RFC 7638 thumbprint: required members in lexicographic order, no whitespace
+        String canonical = "{\"crv\":\"P-256\",\"kty\":\"EC\",\"x\":\"" + x + "\",\"y\":\"" + y + "\"}";
+        String kid = base64Url(MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8)));
+
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("kid", kid);
+        jwk.put("x", x);
+        jwk.put("y", y);
+        keys.put(kid, key);
+        jwkList.add(Collections.unmodifiableMap(jwk));
+        return kid;
+    }
+
+    // Unsigned, left-padded 32-byte big-endian coordinate
+    private static byte[] coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+        return fixed;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,37 @@
+package com.signup.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class EmailUtil {
+
+    // Width of the users.email_hash column
+    public static final int HASH_LENGTH = 16;
+
+    /**
+     * Canonical form used for storage, lookups and token subjects
+     * @param email email as entered
+     * @return trimmed, lower-case email, or null if email is null
+     */
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Fixed-width lookup key for an email: the first 16 bytes of the SHA-256
+     * of its normalized form
+     * @param email email in any form
+     * @return 16-byte hash
+     */
+    public static byte[] lookupHash(String email) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalize(email).getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(digest, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // Required of every JRE
+        }
+    }
+}
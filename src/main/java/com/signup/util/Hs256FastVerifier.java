@@ -0,0 +1,445 @@
+package com.signup.util;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Validation hot path for the HS256 tokens this service issues.
+ *
+ * Works on per-thread scratch buffers: base64url is decoded by hand, the MAC
+ * is computed into scratch from cached key pads, and header and payload are
+ * scanned in place for the few fields we read. Only the subject string and
+ * the resulting {@link TokenClaims} are allocated on success.
+ *
+ * Anything that is not exactly the shape we issue (other algorithms, extra
+ * header fields, escaped strings, nested values, oversized tokens) returns
+ * {@link #UNHANDLED} so the caller can use the general decoder.
+ */
+class Hs256FastVerifier {
+
+    // Sentinel: token is not in the fast-path shape, decode it the general way
+    static final TokenClaims UNHANDLED = new TokenClaims(null, -1L, -1L, false, false);
+
+    private static final int MAX_TOKEN_LENGTH = 4096;
+    private static final int SIGNATURE_LENGTH = 43; // 32 bytes, unpadded base64url
+    private static final int SHA256_BLOCK = 64;
+
+    private static final byte[] ALG = bytes("alg");
+    private static final byte[] KID = bytes("kid");
+    private static final byte[] TYP = bytes("typ");
+    private static final byte[] HS256 = bytes("HS256");
+    private static final byte[] SUB = bytes("sub");
+    private static final byte[] EXP = bytes("exp");
+    private static final byte[] EP = bytes(JwtUtil.EPOCH_CLAIM);
+    private static final byte[] T = bytes("t");
+    private static final byte[] TYPE = bytes("type");
+    private static final byte[] D = bytes("d");
+    private static final byte[] DURATION = bytes("duration");
+    private static final byte[] R = bytes("r");
+    private static final byte[] REFRESH = bytes("refresh");
+    private static final byte[] L = bytes("l");
+    private static final byte[] LONG = bytes("long");
+
+    private static final int[] BASE64URL = new int[128];
+
+    static {
+        java.util.Arrays.fill(BASE64URL, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final SigningKeyRing keyRing;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    Hs256FastVerifier(SigningKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    /**
+     * @param token compact JWS
+     * @return verified claims, null if rejected, or {@link #UNHANDLED}
+     */
+    TokenClaims verify(String token) {
+        int length = token.length();
+        if (length > MAX_TOKEN_LENGTH) {
+            return UNHANDLED;
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return UNHANDLED;
+        }
+
+        Scratch s = scratch.get();
+
+        // Header: {"kid":"<digits>","alg":"HS256"} or the legacy {"alg":"HS256"}
+        int headerLength = decodeBase64Url(token, 0, firstDot, s.buffer, 0);
+        if (headerLength < 0 || !scanHeader(s, headerLength)) {
+            return UNHANDLED;
+        }
+        if (length - secondDot - 1 != SIGNATURE_LENGTH) {
+            return UNHANDLED;
+        }
+        SecretKey key = keyRing.hmacKey(s.kid);
+        if (key == null) {
+            return null; // Unknown or retired key
+        }
+
+        // Signature over the ASCII bytes of header.payload
+        for (int i = 0; i < secondDot; i++) {
+            s.buffer[i] = (byte) token.charAt(i); // Base64url already validated for the header
+        }
+        int payloadLength = decodeBase64Url(token, firstDot + 1, secondDot, s.payload, 0);
+        if (payloadLength < 0 || decodeBase64Url(token, secondDot + 1, length, s.signature, 0) != 32) {
+            return UNHANDLED;
+        }
+        if (!s.hmac(key, secondDot)) {
+            return UNHANDLED;
+        }
+        int diff = 0;
+        for (int i = 0; i < 32; i++) {
+            diff |= s.expected[i] ^ s.signature[i];
+        }
+        if (diff != 0) {
+            return null;
+        }
+
+        TokenClaims claims = scanPayload(s, payloadLength);
+        if (claims == UNHANDLED) {
+            return UNHANDLED;
+        }
+        if (claims.getExpiration() >= 0 && System.currentTimeMillis() > claims.getExpiration() * 1000) {
+            return null;
+        }
+        return claims;
+    }
+
+    private static boolean scanHeader(Scratch s, int end) {
+        byte[] json = s.buffer;
+        s.kid = -1L;
+        boolean hs256 = false;
+        s.pos = 0;
+        if (!openObject(s, json, end)) {
+            return false;
+        }
+        while (s.pos < end && json[s.pos] != '}') {
+            if (!readMember(s, json, end)) {
+                return false;
+            }
+            if (matches(json, s.keyStart, s.keyEnd, ALG)) {
+                hs256 = s.valueKind == '"' && matches(json, s.valueStart, s.valueEnd, HS256);
+            } else if (matches(json, s.keyStart, s.keyEnd, KID)) {
+                if (s.valueKind != '"' || (s.kid = parseDigits(json, s.valueStart, s.valueEnd)) < 0) {
+                    return false;
+                }
+            } else if (!matches(json, s.keyStart, s.keyEnd, TYP)) {
+                return false; // zip, crit, ... need the general decoder
+            }
+        }
+        return hs256 && closeObject(s, json, end);
+    }
+
+    private static TokenClaims scanPayload(Scratch s, int end) {
+        byte[] json = s.payload;
+        String subject = null;
+        long expiration = -1L;
+        long epoch = -1L;
+        boolean refresh = false;
+        boolean longLived = false;
+        s.pos = 0;
+        if (!openObject(s, json, end)) {
+            return UNHANDLED;
+        }
+        while (s.pos < end && json[s.pos] != '}') {
+            if (!readMember(s, json, end)) {
+                return UNHANDLED;
+            }
+            int ks = s.keyStart;
+            int ke = s.keyEnd;
+            boolean isString = s.valueKind == '"';
+            if (matches(json, ks, ke, SUB)) {
+                subject = isString ? new String(json, s.valueStart, s.valueEnd - s.valueStart, StandardCharsets.US_ASCII) : null;
+            } else if (matches(json, ks, ke, EXP)) {
+                expiration = s.valueKind == '0' ? s.number : -1L;
+            } else if (matches(json, ks, ke, EP)) {
+                epoch = s.valueKind == '0' ? s.number : -1L;
+            } else if (matches(json, ks, ke, T) || matches(json, ks, ke, TYPE)) {
+                refresh = isString && (matches(json, s.valueStart, s.valueEnd, R) || matches(json, s.valueStart, s.valueEnd, REFRESH));
+            } else if (matches(json, ks, ke, D) || matches(json, ks, ke, DURATION)) {
+                longLived = isString && (matches(json, s.valueStart, s.valueEnd, L) || matches(json, s.valueStart, s.valueEnd, LONG));
+            }
+        }
+        if (!closeObject(s, json, end)) {
+            return UNHANDLED;
+        }
+        return new TokenClaims(subject, expiration, epoch, refresh, longLived);
+    }
+
+    // ---- minimal JSON scanning over flat objects of strings, integers and literals ----
+
+    private static boolean openObject(Scratch s, byte[] json, int end) {
+        skipWhitespace(s, json, end);
+        if (s.pos >= end || json[s.pos] != '{') {
+            return false;
+        }
+        s.pos++;
+        skipWhitespace(s, json, end);
+        return true;
+    }
+
+    private static boolean closeObject(Scratch s, byte[] json, int end) {
+        if (s.pos >= end || json[s.pos] != '}') {
+            return false;
+        }
+        s.pos++;
+        skipWhitespace(s, json, end);
+        return s.pos == end;
+    }
+
+    // Reads "key":value and a following comma; leaves pos on the next key or '}'
+    private static boolean readMember(Scratch s, byte[] json, int end) {
+        if (!readString(s, json, end)) {
+            return false;
+        }
+        s.keyStart = s.valueStart;
+        s.keyEnd = s.valueEnd;
+        skipWhitespace(s, json, end);
+        if (s.pos >= end || json[s.pos] != ':') {
+            return false;
+        }
+        s.pos++;
+        skipWhitespace(s, json, end);
+        if (s.pos >= end) {
+            return false;
+        }
+        byte c = json[s.pos];
+        if (c == '"') {
+            if (!readString(s, json, end)) {
+                return false;
+            }
+            s.valueKind = '"';
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            if (!readInteger(s, json, end)) {
+                return false;
+            }
+            s.valueKind = '0';
+        } else if (!readLiteral(s, json, end)) {
+            return false;
+        }
+        skipWhitespace(s, json, end);
+        if (s.pos < end && json[s.pos] == ',') {
+            s.pos++;
+            skipWhitespace(s, json, end);
+            return s.pos < end && json[s.pos] == '"';
+        }
+        return s.pos < end && json[s.pos] == '}';
+    }
+
+    // Plain ASCII strings only; escapes and non-ASCII go to the general decoder
+    private static boolean readString(Scratch s, byte[] json, int end) {
+        if (s.pos >= end || json[s.pos] != '"') {
+            return false;
+        }
+        int start = ++s.pos;
+        while (s.pos < end) {
+            byte c = json[s.pos];
+            if (c == '"') {
+                s.valueStart = start;
+                s.valueEnd = s.pos++;
+                return true;
+            }
+            if (c == '\\' || c < 0x20) { // Negative bytes are non-ASCII
+                return false;
+            }
+            s.pos++;
+        }
+        return false;
+    }
+
+    private static boolean readInteger(Scratch s, byte[] json, int end) {
+        boolean negative = json[s.pos] == '-';
+        if (negative) {
+            s.pos++;
+        }
+        int start = s.pos;
+        long value = 0;
+        while (s.pos < end && json[s.pos] >= '0' && json[s.pos] <= '9') {
+            value = value * 10 + (json[s.pos++] - '0');
+        }
+        int digits = s.pos - start;
+        if (digits == 0 || digits > 18) {
+            return false;
+        }
+        if (s.pos < end && (json[s.pos] == '.' || json[s.pos] == 'e' || json[s.pos] == 'E')) {
+            return false;
+        }
+        s.number = negative ? -value : value;
+        return true;
+    }
+
+    private static boolean readLiteral(Scratch s, byte[] json, int end) {
+        int length = json[s.pos] == 'f' ? 5 : 4;
+        if (s.pos + length > end) {
+            return false;
+        }
+        byte c = json[s.pos];
+        boolean ok = (c == 't' && json[s.pos + 1] == 'r' && json[s.pos + 2] == 'u' && json[s.pos + 3] == 'e')
+                || (c == 'n' && json[s.pos + 1] == 'u' && json[s.pos + 2] == 'l' && json[s.pos + 3] == 'l')
+                || (c == 'f' && json[s.pos + 1] == 'a' && json[s.pos + 2] == 'l' && json[s.pos + 3] == 's' && json[s.pos + 4] == 'e');
+        s.pos += length;
+        s.valueKind = 'l';
+        return ok;
+    }
+
+    private static void skipWhitespace(Scratch s, byte[] json, int end) {
+        while (s.pos < end) {
+            byte c = json[s.pos];
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            s.pos++;
+        }
+    }
+
+    private static boolean matches(byte[] json, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (json[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseDigits(byte[] json, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length > 18) {
+            return -1L;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte c = json[i];
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Unpadded base64url into out; returns decoded length or -1 on bad input/overflow
+    private static int decodeBase64Url(String src, int from, int to, byte[] out, int offset) {
+        int length = to - from;
+        if (length % 4 == 1) {
+            return -1;
+        }
+        int written = offset;
+        int bits = 0;
+        int accumulator = 0;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            int value = c < 128 ? BASE64URL[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            accumulator = (accumulator << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                if (written >= out.length) {
+                    return -1;
+                }
+                out[written++] = (byte) (accumulator >> bits);
+            }
+        }
+        return written - offset;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class Scratch {
+        final byte[] buffer = new byte[MAX_TOKEN_LENGTH];
+        final byte[] payload = new byte[MAX_TOKEN_LENGTH];
+        final byte[] signature = new byte[32];
+        final byte[] expected = new byte[32];
+
+        // HMAC inner and outer pads for the few keys in use (current, previous, legacy)
+        final SecretKey[] keys = new SecretKey[4];
+        final byte[][] pads = new byte[4][];
+        int nextSlot;
+        MessageDigest sha256;
+
+        // Scanner cursor and last member read
+        int pos;
+        int keyStart;
+        int keyEnd;
+        int valueStart;
+        int valueEnd;
+        char valueKind;
+        long number;
+        long kid;
+
+        // HMAC-SHA256 (RFC 2104) of buffer[0, length) into expected. Done by hand because
+        // Mac.doFinal allocates its result even when it is given an output array
+        boolean hmac(SecretKey key, int length) {
+            byte[] keyPads = pads(key);
+            if (keyPads == null) {
+                return false;
+            }
+            try {
+                sha256.update(keyPads, 0, SHA256_BLOCK);
+                sha256.update(buffer, 0, length);
+                sha256.digest(expected, 0, 32);
+                sha256.update(keyPads, SHA256_BLOCK, SHA256_BLOCK);
+                sha256.update(expected, 0, 32);
+                sha256.digest(expected, 0, 32);
+                return true;
+            } catch (DigestException e) {
+                sha256.reset();
+                return false;
+            }
+        }
+
+        // Key XOR ipad, then key XOR opad; null if the key or SHA-256 is unavailable
+        private byte[] pads(SecretKey key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return pads[i];
+                }
+            }
+            byte[] secret = key.getEncoded();
+            if (secret == null) {
+                return null;
+            }
+            try {
+                if (sha256 == null) {
+                    sha256 = MessageDigest.getInstance("SHA-256");
+                }
+            } catch (NoSuchAlgorithmException e) {
+                return null;
+            }
+            if (secret.length > SHA256_BLOCK) {
+                secret = sha256.digest(secret);
+            }
+            byte[] keyPads = new byte[2 * SHA256_BLOCK];
+            for (int i = 0; i < SHA256_BLOCK; i++) {
+                byte k = i < secret.length ? secret[i] : 0;
+                keyPads[i] = (byte) (k ^ 0x36);
+                keyPads[SHA256_BLOCK + i] = (byte) (k ^ 0x5c);
+            }
+            int slot = nextSlot++ & (keys.length - 1);
+            keys[slot] = key;
+            pads[slot] = keyPads;
+            return keyPads;
+        }
+    }
+}
@@ -1,125 +1,137 @@
 package com.signup.util;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    @Autowired
+    private SigningKeyRing keyRing;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    // Compact tokens: numeric user id as subject, one-letter claims, no iat
+    @Value("${jwt.compact-tokens:false}")
+    private boolean compactTokens;
+
+    // Claim carrying the user's revocation epoch at issue time
+    public static final String EPOCH_CLAIM = "ep";
+
     // Refresh token expiration (longer than access token)
     private final Long refreshTokenExpiration = 7 * 24 * 60 * 60 * 1000L; // 7 days
     private final Long longRefreshTokenExpiration = 90 * 24 * 60 * 60 * 1000L; // 90 days
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Parsers are immutable and thread-safe; the key ring picks the key by kid
+    private JwtParser parser;
+    private TokenDecoder decoder;
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyRing)
+                .build();
+        decoder = new TokenDecoder(keyRing, parser);
     }
 
     /**
      * Generate JWT token for user (access token)
      * @param email user email
+     * @param userId user id, used as the subject of compact tokens (may be null)
+     * @param epoch user's current revocation epoch
      * @return JWT token
      */
-    public String generateToken(String email) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expiration);
-
-        return Jwts.builder()
-                .setSubject(email)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+    public String generateToken(String email, Long userId, long epoch) {
+        return buildToken(email, userId, epoch, expiration, false, false);
     }
 
     /**
      * Generate refresh token for user (7 days)
      * @param email user email
+     * @param userId user id, used as the subject of compact tokens (may be null)
+     * @param epoch user's current revocation epoch
      * @return refresh token
      */
-    public String generateRefreshToken(String email) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + refreshTokenExpiration);
-
-        return Jwts.builder()
-                .setSubject(email)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .claim("type", "refresh")
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+    public String generateRefreshToken(String email, Long userId, long epoch) {
+        return buildToken(email, userId, epoch, refreshTokenExpiration, true, false);
     }
 
     /**
      * Generate long-term refresh token for user (90 days - Facebook style)
      * @param email user email
+     * @param userId user id, used as the subject of compact tokens (may be null)
+     * @param epoch user's current revocation epoch
      * @return long-term refresh token
      */
-    public String generateLongRefreshToken(String email) {
+    public String generateLongRefreshToken(String email, Long userId, long epoch) {
+        return buildToken(email, userId, epoch, longRefreshTokenExpiration, true, true);
+    }
+
+    private String buildToken(String email, Long userId, long epoch, long lifetime, boolean refresh, boolean longLived) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + longRefreshTokenExpiration);
+        Date expiryDate = new Date(now.getTime() + lifetime);
+        JwtBuilder builder = keyRing.newSignedBuilder();
+
+        if (compactTokens && userId != null) {
+            builder.setSubject(userId.toString())
+                    .setExpiration(expiryDate)
+                    .claim(EPOCH_CLAIM, epoch);
+            if (refresh) {
+                builder.claim("t", "r");
+            }
+            if (longLived) {
+                builder.claim("d", "l");
+            }
+            return builder.compact();
+        }
 
-        return Jwts.builder()
-                .setSubject(email)
+        builder.setSubject(email)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .claim("type", "refresh")
-                .claim("duration", "long") // Mark as long-term token
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(expiryDate);
+        if (refresh) {
+            builder.claim("type", "refresh");
+        }
+        builder.claim(EPOCH_CLAIM, epoch);
+        if (longLived) {
+            builder.claim("duration", "long"); // Mark as long-term token
+        }
+        return builder.compact();
+    }
+
+    /**
+     * Verify a token and decode the claims this service uses, in one pass
+     * @param token JWT token (standard or compact)
+     * @return decoded claims, or null if the token is invalid or expired
+     */
+    public TokenClaims decode(String token) {
+        return decoder.decode(token);
     }
 
     /**
      * Extract email from JWT token
      * @param token JWT token
-     * @return email from token
+     * @return email from token (user id for compact tokens)
      */
     public String extractEmail(String token) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.getSubject();
-        } catch (Exception e) {
-            return null;
-        }
+        TokenClaims claims = decode(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     /**
      * Extract email from refresh token
      * @param refreshToken refresh token
-     * @return email from refresh token
+     * @return email from refresh token (user id for compact tokens)
      */
     public String extractEmailFromRefreshToken(String refreshToken) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(refreshToken)
-                    .getBody();
-            
-            // Check if it's a refresh token
-            String type = claims.get("type", String.class);
-            if (!"refresh".equals(type)) {
-                return null;
-            }
-            
-            return claims.getSubject();
-        } catch (Exception e) {
-            return null;
-        }
+        TokenClaims claims = decode(refreshToken);
+        // Check if it's a refresh token
+        return claims != null && claims.isRefresh() ? claims.getSubject() : null;
     }
 
     /**
@@ -128,15 +140,7 @@ public class JwtUtil {
      * @return true if token is valid
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return decode(token) != null;
     }
 
     /**
@@ -145,37 +149,16 @@ public class JwtUtil {
      * @return true if refresh token is valid
      */
     public boolean validateRefreshToken(String refreshToken) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(refreshToken)
-                    .getBody();
-            
-            // Check if it's a refresh token
-            String type = claims.get("type", String.class);
-            return "refresh".equals(type);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        TokenClaims claims = decode(refreshToken);
+        return claims != null && claims.isRefresh();
     }
 
     /**
      * Check if JWT token is expired
      * @param token JWT token
-     * @return true if token is expired
+     * @return true if token is expired (or otherwise unusable)
      */
     public boolean isTokenExpired(String token) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            
-            return claims.getExpiration().before(new Date());
-        } catch (Exception e) {
-            return true;
-        }
+        return decode(token) == null;
     }
-} 
\ No newline at end of file
+}
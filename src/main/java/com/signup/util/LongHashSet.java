@@ -0,0 +1,122 @@
+package com.signup.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Open-addressing set of non-negative longs in a single long[] (linear
+ * probing, no boxing, no per-entry objects).
+ *
+ * Writers serialize on the set; readers never lock. Slots are written with
+ * release and read with acquire semantics, and a grown table is published
+ * through a volatile field, so contains() is safe from any thread and sees
+ * every add that completed before it started.
+ */
+public class LongHashSet {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long EMPTY = 0; // Slots hold value + 1
+
+    private volatile long[] table;
+    private int size;
+
+    /**
+     * @param expectedSize number of values to make room for up front
+     */
+    public LongHashSet(int expectedSize) {
+        table = new long[capacityFor(Math.max(expectedSize, 16))];
+    }
+
+    /**
+     * @param value value to look up
+     * @return true if the value was added before
+     */
+    public boolean contains(long value) {
+        if (value < 0) {
+            return false;
+        }
+        long[] slots = table;
+        long stored = value + 1;
+        int mask = slots.length - 1;
+        for (int index = mix(value) & mask; ; index = (index + 1) & mask) {
+            long slot = (long) SLOTS.getAcquire(slots, index);
+            if (slot == stored) {
+                return true;
+            }
+            if (slot == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @param value non-negative value to add
+     * @return true if the value was not present yet
+     */
+    public synchronized boolean add(long value) {
+        if (value < 0 || value == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Value out of range: " + value);
+        }
+        if ((size + 1) * 3L > table.length * 2L) { // Keep the load factor under 2/3
+            table = rehash(table, table.length * 2);
+        }
+        if (!insert(table, value + 1)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * @return number of values in the set
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes held by the backing table
+     */
+    public long tableBytes() {
+        return table.length * (long) Long.BYTES;
+    }
+
+    private static boolean insert(long[] slots, long stored) {
+        int mask = slots.length - 1;
+        for (int index = mix(stored - 1) & mask; ; index = (index + 1) & mask) {
+            long slot = slots[index];
+            if (slot == stored) {
+                return false;
+            }
+            if (slot == EMPTY) {
+                SLOTS.setRelease(slots, index, stored);
+                return true;
+            }
+        }
+    }
+
+    private static long[] rehash(long[] old, int capacity) {
+        long[] grown = new long[capacity];
+        for (long stored : old) {
+            if (stored != EMPTY) {
+                insert(grown, stored);
+            }
+        }
+        return grown;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = expectedSize * 3L / 2 + 1;
+        return (int) Math.min(1L << 30, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    // MurmurHash3 finalizer folded to an int; sequential numbers must not cluster
+    private static int mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+}
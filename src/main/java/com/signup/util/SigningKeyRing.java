@@ -0,0 +1,210 @@
+package com.signup.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Rotating set of HMAC signing keys.
+ *
+ * Each generation's key is derived from jwt.secret and the generation number,
+ * so every instance computes the same keys without coordination. Tokens carry
+ * the generation as their "kid" header; retired generations keep verifying
+ * until the tokens they signed have expired, so a rotation never forces a
+ * mass re-login.
+ *
+ * With jwt.signing-algorithm=ES256 new tokens are signed by {@link EcKeySet}
+ * instead; both kinds of kid keep verifying so switching modes logs no one out.
+ */
+@Component
+@Lazy(false) // Owns a @Scheduled task, which lazy initialization would never start
+public class SigningKeyRing extends SigningKeyResolverAdapter {
+
+    // SHA-256 of the development secret in application.properties, which anyone with the repository can read
+    private static final String DEVELOPMENT_SECRET_SHA256 = "1a83691fec70a5ffcc9b6397927a58cff8ec85b92b7fa2978dfa57ba7694d283";
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    // Off in production, where signing with the committed secret would let anyone forge tokens
+    @Value("${jwt.allow-development-secret:false}")
+    private boolean allowDevelopmentSecret;
+
+    // How often a new signing key takes over
+    @Value("${jwt.key-rotation-period:2592000000}")
+    private long rotationPeriod;
+
+    // How long a retired key still verifies tokens; must cover the longest token lifetime
+    @Value("${jwt.key-retention:7776000000}")
+    private long retention;
+
+    // Accept tokens issued before kid headers existed, signed directly with jwt.secret
+    @Value("${jwt.accept-legacy-tokens:true}")
+    private boolean acceptLegacyTokens;
+
+    @Autowired
+    private EcKeySet ecKeySet;
+
+    private SecretKey legacyKey;
+
+    // Slot = generation mod length; holds retained, current and next generation
+    private volatile Generation[] ring;
+    private volatile Generation current;
+
+    private static final class Generation {
+        final long id;
+        final String kid;
+        final SecretKey key;
+
+        Generation(long id, SecretKey key) {
+            this.id = id;
+            this.kid = Long.toString(id);
+            this.key = key;
+        }
+    }
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("jwt.secret is not set; set JWT_SECRET");
+        }
+        if (!allowDevelopmentSecret && isDevelopmentSecret(secret)) {
+            throw new IllegalStateException("jwt.secret is the development secret from the repository; set JWT_SECRET");
+        }
+        legacyKey = Keys.hmacShaKeyFor(secret.getBytes());
+        int retained = (int) ((retention + rotationPeriod - 1) / rotationPeriod);
+        ring = new Generation[retained + 2];
+        rotate();
+    }
+
+    /**
+     * Install the generation for the current time slot; precomputes the next
+     * one so instances whose clocks run slightly ahead are still accepted.
+     */
+    @Scheduled(fixedDelayString = "${jwt.key-rotation-check:60000}")
+    public synchronized void rotate() {
+        long generation = System.currentTimeMillis() / rotationPeriod;
+        if (current != null && current.id == generation) {
+            return;
+        }
+        Generation[] next = ring.clone();
+        for (long id = generation - (next.length - 2); id <= generation + 1; id++) {
+            int slot = slot(id, next.length);
+            if (next[slot] == null || next[slot].id != id) {
+                next[slot] = new Generation(id, deriveKey(id));
+            }
+        }
+        ring = next;
+        current = next[slot(generation, next.length)];
+    }
+
+    /**
+     * Start a token signed with the current generation, kid header included
+     * @return builder ready for claims
+     */
+    public JwtBuilder newSignedBuilder() {
+        if (ecKeySet.isSigningMode()) {
+            return Jwts.builder()
+                    .setHeaderParam(JwsHeader.KEY_ID, ecKeySet.signingKid())
+                    .signWith(ecKeySet.signingKey(), SignatureAlgorithm.ES256);
+        }
+        Generation generation = current;
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, generation.kid)
+                .signWith(generation.key, SignatureAlgorithm.HS256);
+    }
+
+    // jjwt 0.11 declares the resolver with a raw JwsHeader; a parameterised override would not override it
+    @Override
+    @SuppressWarnings("rawtypes")
+    public java.security.Key resolveSigningKey(JwsHeader header, Claims claims) {
+        java.security.Key key = verificationKey(header.getKeyId());
+        if (key == null) {
+            throw new SignatureException("Unknown or retired key id");
+        }
+        return key;
+    }
+
+    /**
+     * Look up the key that verifies tokens with the given kid
+     * @param kid key id from the token header, null for legacy tokens
+     * @return HMAC secret key or EC public key, null if unknown or retired
+     */
+    public java.security.Key verificationKey(String kid) {
+        if (kid == null) {
+            return hmacKey(-1L);
+        }
+        long id = parseKeyId(kid);
+        return id < 0 ? ecKeySet.verificationKey(kid) : hmacKey(id);
+    }
+
+    /**
+     * Look up an HMAC verification key by generation, without touching the kid string
+     * @param generation generation from a numeric kid, or -1 for legacy tokens without one
+     * @return secret key, null if unknown or retired
+     */
+    public SecretKey hmacKey(long generation) {
+        if (generation < 0) {
+            return acceptLegacyTokens ? legacyKey : null;
+        }
+        Generation[] generations = ring;
+        Generation slot = generations[slot(generation, generations.length)];
+        return slot != null && slot.id == generation ? slot.key : null;
+    }
+
+    // Digits-only parse that allocates nothing; -1 for anything else
+    private static long parseKeyId(String kid) {
+        int length = kid.length();
+        if (length == 0 || length > 18) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = 0; i < length; i++) {
+            char c = kid.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private static boolean isDevelopmentSecret(String secret) throws GeneralSecurityException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        return MessageDigest.isEqual(digest, HexFormat.of().parseHex(DEVELOPMENT_SECRET_SHA256));
+    }
+
+    private static int slot(long id, int length) {
+        return (int) Math.floorMod(id, (long) length);
+    }
+
+    private SecretKey deriveKey(long generation) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA512");
+            mac.init(new SecretKeySpec(secret.getBytes(), "HmacSHA512"));
+            byte[] material = mac.doFinal(("signup-jwt-key:" + generation).getBytes(StandardCharsets.UTF_8));
+            return Keys.hmacShaKeyFor(material);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to derive signing key", e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.signup.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one execution.
+ *
+ * The first caller for a key runs the query; callers arriving while it runs
+ * wait for and share its result (or its exception). The key is released
+ * before the result is handed out, so a call that starts after a query
+ * finished always runs a new one. Shared results must be treated as
+ * read-only.
+ *
+ * A waiter that is not served within the wait timeout runs the query
+ * itself instead of queueing behind a stuck one.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long waitTimeoutMillis;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * @param waitTimeoutMillis longest a caller waits for another caller's query
+     */
+    public SingleFlight(long waitTimeoutMillis) {
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * @param key what the query looks up
+     * @param query runs the lookup; may throw unchecked exceptions
+     * @return the query's result, possibly shared with concurrent callers
+     */
+    public V get(K key, Supplier<V> query) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running == null) {
+            return lead(key, call, query);
+        }
+        try {
+            V value = running.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+            shared.increment();
+            return value;
+        } catch (ExecutionException e) {
+            shared.increment();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Left to the query's own blocking calls
+        }
+        executed.increment();
+        return query.get();
+    }
+
+    /**
+     * Stop sharing the query in flight for a key, e.g. after the key's data changed
+     * @param key what the query looks up
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    // Stop sharing every query in flight, e.g. after a bulk update
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * @return number of queries run
+     */
+    public long executed() {
+        return executed.sum();
+    }
+
+    /**
+     * @return number of calls served by another caller's query (queries saved)
+     */
+    public long shared() {
+        return shared.sum();
+    }
+
+    /**
+     * @return number of calls that gave up waiting and ran the query themselves
+     */
+    public long timedOut() {
+        return timedOut.sum();
+    }
+
+    private V lead(K key, CompletableFuture<V> call, Supplier<V> query) {
+        executed.increment();
+        V value;
+        try {
+            value = query.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, call);
+        call.complete(value);
+        return value;
+    }
+}
@@ -0,0 +1,89 @@
+package com.signup.util;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered 64-bit ids: 41 bits of milliseconds since 2024-01-01, 10 bits
+ * of node id and 12 bits of per-millisecond sequence.
+ *
+ * The last timestamp and sequence live in one AtomicLong, so callers never
+ * lock. When the sequence runs out, or the wall clock steps backwards, the
+ * generator keeps counting on from its last timestamp instead of waiting;
+ * ids stay unique and ordered, and time catches up on its own.
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeIdGenerator.class);
+
+    private static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Must differ between every instance writing to the same users table
+    @Value("${ids.node-id:0}")
+    private long nodeId;
+
+    // Warn when the generator runs this far ahead of the wall clock
+    @Value("${ids.max-clock-drift-ms:1000}")
+    private long maxClockDriftMillis;
+
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong state = new AtomicLong();
+    private final AtomicBoolean drifting = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("ids.node-id must be between 0 and " + MAX_NODE_ID + ", was " + nodeId);
+        }
+    }
+
+    /**
+     * @return a new id, greater than every id this generator returned before
+     */
+    public long nextId() {
+        long now = System.currentTimeMillis() - EPOCH;
+        long current;
+        long next;
+        do {
+            current = state.get();
+            // A new millisecond restarts the sequence; otherwise count on,
+            // carrying into the timestamp when the sequence is exhausted
+            next = now > current >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : current + 1;
+        } while (!state.compareAndSet(current, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        checkDrift(timestamp - now);
+        return timestamp << (NODE_BITS + SEQUENCE_BITS) | nodeId << SEQUENCE_BITS | next & SEQUENCE_MASK;
+    }
+
+    /**
+     * Never hand out an id from the same millisecond as, or earlier than, the
+     * given one; used at startup so a clock that went backwards across a
+     * restart cannot repeat ids that are already stored
+     * @param id largest id already in use
+     */
+    public void advancePast(long id) {
+        long floor = (id >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS | SEQUENCE_MASK;
+        state.accumulateAndGet(floor, Math::max);
+    }
+
+    // Warn once when drift passes the limit, and again only after the clock has caught up
+    private void checkDrift(long aheadMillis) {
+        if (aheadMillis > maxClockDriftMillis && drifting.compareAndSet(false, true)) {
+            log.warn("Id generator is {} ms ahead of the wall clock (clock moved backwards or ids exhausted)", aheadMillis);
+        } else if (aheadMillis <= 0 && drifting.get() && drifting.compareAndSet(true, false)) {
+            log.info("Id generator is back in step with the wall clock");
+        }
+    }
+}
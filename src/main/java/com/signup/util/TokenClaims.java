@@ -0,0 +1,69 @@
+package com.signup.util;
+
+/**
+ * The handful of claims this service reads from its own tokens, decoded
+ * straight into fields instead of a generic claims map.
+ */
+public final class TokenClaims {
+
+    private final String subject;
+    private final long expiration;
+    private final long epoch;
+    private final boolean refresh;
+    private final boolean longLived;
+
+    public TokenClaims(String subject, long expiration, long epoch, boolean refresh, boolean longLived) {
+        this.subject = subject;
+        this.expiration = expiration;
+        this.epoch = epoch;
+        this.refresh = refresh;
+        this.longLived = longLived;
+    }
+
+    /**
+     * @return user email, or the numeric user id for compact tokens
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * @return user id when the subject is numeric (compact tokens), -1 otherwise
+     */
+    public long getUserId() {
+        if (subject == null || subject.isEmpty() || subject.length() > 18) {
+            return -1L;
+        }
+        long id = 0;
+        for (int i = 0; i < subject.length(); i++) {
+            char c = subject.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    /**
+     * @return expiry in seconds since the epoch, -1 if the token has none
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * @return revocation epoch the token was issued under, -1 if absent
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public boolean isRefresh() {
+        return refresh;
+    }
+
+    public boolean isLongLived() {
+        return longLived;
+    }
+}
@@ -0,0 +1,183 @@
+package com.signup.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * Verifies this service's tokens and streams their claims into a
+ * {@link TokenClaims} without building a claims map.
+ *
+ * HS256 tokens in the exact shape we issue go through
+ * {@link Hs256FastVerifier} first. Otherwise HS256 and ES256 tokens are
+ * handled here, and any other header shape (compression, critical
+ * extensions, other algorithms) is handed to jjwt.
+ */
+class TokenDecoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final SigningKeyRing keyRing;
+    private final JwtParser fallbackParser;
+    private final Hs256FastVerifier fastVerifier;
+
+    TokenDecoder(SigningKeyRing keyRing, JwtParser fallbackParser) {
+        this.keyRing = keyRing;
+        this.fallbackParser = fallbackParser;
+        this.fastVerifier = new Hs256FastVerifier(keyRing);
+    }
+
+    /**
+     * @param token compact JWS
+     * @return verified, unexpired claims, or null if the token is not acceptable
+     */
+    TokenClaims decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        TokenClaims fast = fastVerifier.verify(token);
+        if (fast != Hs256FastVerifier.UNHANDLED) {
+            return fast;
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+
+        try {
+            Base64.Decoder base64 = Base64.getUrlDecoder();
+            Header header = readHeader(base64.decode(token.substring(0, firstDot)));
+            if (!header.plain || !("HS256".equals(header.alg) || "ES256".equals(header.alg))) {
+                return fallback(token);
+            }
+
+            Key key = keyRing.verificationKey(header.kid);
+            if (key == null) {
+                return null;
+            }
+            byte[] signingInput = token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII);
+            byte[] signature = base64.decode(token.substring(secondDot + 1));
+            if (!verify(header.alg, key, signingInput, signature)) {
+                return null;
+            }
+
+            TokenClaims claims = readClaims(base64.decode(token.substring(firstDot + 1, secondDot)));
+            if (claims.getExpiration() >= 0 && System.currentTimeMillis() > claims.getExpiration() * 1000) {
+                return null;
+            }
+            return claims;
+        } catch (IllegalArgumentException | IOException | GeneralSecurityException e) {
+            return null;
+        }
+    }
+
+    // Only accept the key type that matches the declared algorithm
+    private static boolean verify(String alg, Key key, byte[] signingInput, byte[] signature)
+            throws GeneralSecurityException {
+        if ("HS256".equals(alg) && key instanceof SecretKey) {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return MessageDigest.isEqual(mac.doFinal(signingInput), signature);
+        }
+        if ("ES256".equals(alg) && key instanceof PublicKey) {
+            Signature verifier = Signature.getInstance("SHA256withECDSAinP1363Format");
+            verifier.initVerify((PublicKey) key);
+            verifier.update(signingInput);
+            return verifier.verify(signature);
+        }
+        return false;
+    }
+
+    private TokenClaims fallback(String token) {
+        try {
+            Claims claims = fallbackParser.parseClaimsJws(token).getBody();
+            Number exp = claims.get(Claims.EXPIRATION, Number.class);
+            Number epoch = claims.get(JwtUtil.EPOCH_CLAIM, Number.class);
+            Object type = claims.containsKey("t") ? claims.get("t") : claims.get("type");
+            Object duration = claims.containsKey("d") ? claims.get("d") : claims.get("duration");
+            return new TokenClaims(
+                claims.getSubject(),
+                exp != null ? exp.longValue() : -1L,
+                epoch != null ? epoch.longValue() : -1L,
+                "r".equals(type) || "refresh".equals(type),
+                "l".equals(duration) || "long".equals(duration)
+            );
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class Header {
+        String alg;
+        String kid;
+        boolean plain = true;
+    }
+
+    private static Header readHeader(byte[] json) throws IOException {
+        Header header = new Header();
+        try (JsonParser parser = JSON.createParser(json)) {
+            expectObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "alg" -> header.alg = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    case "kid" -> header.kid = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    case "typ" -> parser.skipChildren();
+                    default -> {
+                        header.plain = false; // zip, crit, ... are jjwt's business
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return header;
+    }
+
+    private static TokenClaims readClaims(byte[] json) throws IOException {
+        String subject = null;
+        long expiration = -1L;
+        long epoch = -1L;
+        boolean refresh = false;
+        boolean longLived = false;
+        try (JsonParser parser = JSON.createParser(json)) {
+            expectObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "sub" -> subject = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    case "exp" -> expiration = value.isNumeric() ? parser.getLongValue() : -1L;
+                    case JwtUtil.EPOCH_CLAIM -> epoch = value.isNumeric() ? parser.getLongValue() : -1L;
+                    case "t", "type" -> refresh = value == JsonToken.VALUE_STRING
+                            && ("r".equals(parser.getText()) || "refresh".equals(parser.getText()));
+                    case "d", "duration" -> longLived = value == JsonToken.VALUE_STRING
+                            && ("l".equals(parser.getText()) || "long".equals(parser.getText()));
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new TokenClaims(subject, expiration, epoch, refresh, longLived);
+    }
+
+    private static void expectObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.signup;
+
+import com.signup.database.DatabaseService;
+import com.signup.database.ShardRebalancer;
+import com.signup.service.AuthService;
+import com.signup.service.JitWarmUp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Startup order of the runner, with the services it calls stubbed.
+ */
+@DisabledInNativeImage // Mockito needs runtime class generation the native build doesn't have
+class SignupProjectApplicationStartupTest {
+
+    private final DatabaseService databaseService = mock(DatabaseService.class);
+    private final ShardRebalancer shardRebalancer = mock(ShardRebalancer.class);
+    private final AuthService authService = mock(AuthService.class);
+    private final JitWarmUp jitWarmUp = mock(JitWarmUp.class);
+
+    @Test
+    void rebalanceFinishesBeforeReadinessEvenWithAsyncSchemaInit() throws Exception {
+        application(true, true).run();
+
+        InOrder order = inOrder(databaseService, shardRebalancer, authService, jitWarmUp);
+        order.verify(databaseService).initializeDatabase();
+        order.verify(shardRebalancer).rebalance();
+        order.verify(authService).restoreSessions();
+        order.verify(jitWarmUp).run();
+    }
+
+    @Test
+    void schemaInitRunsInTheBackgroundWithoutRebalance() throws Exception {
+        application(true, false).run();
+
+        verify(jitWarmUp).run();
+        verify(databaseService, timeout(5_000)).initializeDatabase();
+        verify(authService, timeout(5_000)).restoreSessions();
+        verifyNoInteractions(shardRebalancer);
+    }
+
+    private SignupProjectApplication application(boolean asyncSchemaInit, boolean rebalanceShards) {
+        SignupProjectApplication application = new SignupProjectApplication();
+        ReflectionTestUtils.setField(application, "databaseService", databaseService);
+        ReflectionTestUtils.setField(application, "shardRebalancer", shardRebalancer);
+        ReflectionTestUtils.setField(application, "authService", authService);
+        ReflectionTestUtils.setField(application, "jitWarmUp", jitWarmUp);
+        ReflectionTestUtils.setField(application, "asyncSchemaInit", asyncSchemaInit);
+        ReflectionTestUtils.setField(application, "rebalanceShards", rebalanceShards);
+        return application;
+    }
+}
@@ -1,13 +1,59 @@
 package com.signup;
 
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
 class SignupProjectApplicationTests {
 
     @Test
     void contextLoads() {
         // This test will pass if the Spring application context loads successfully
     }
-} 
\ No newline at end of file
+
+    @Nested
+    @TestPropertySource(properties = "spring.main.lazy-initialization=true") // As in the prod profile
+    class WithLazyInitialization {
+
+        // This class runs in its own context; the enclosing class's context is eager
+        @Autowired
+        private ConfigurableListableBeanFactory beanFactory;
+
+        @Test
+        void beansOwningScheduledTasksStartAnyway() {
+            List<String> owners = new ArrayList<>();
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                Class<?> type = beanFactory.getType(name, false);
+                if (type == null || !type.getName().startsWith("com.signup.")) {
+                    continue;
+                }
+                boolean[] scheduled = {false};
+                ReflectionUtils.doWithMethods(ClassUtils.getUserClass(type), method -> scheduled[0] |=
+                        AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+                if (scheduled[0]) {
+                    owners.add(name);
+                }
+            }
+
+            assertFalse(owners.isEmpty());
+            for (String name : owners) {
+                assertTrue(beanFactory.containsSingleton(name), name + " was never created, so its tasks never run");
+            }
+        }
+    }
+}
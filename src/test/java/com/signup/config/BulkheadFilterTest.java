@@ -0,0 +1,86 @@
+package com.signup.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadFilterTest {
+
+    private BulkheadFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new BulkheadFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "hashingInitialLimit", 1);
+        ReflectionTestUtils.setField(filter, "hashingMinLimit", 1);
+        ReflectionTestUtils.setField(filter, "hashingMaxLimit", 1);
+        ReflectionTestUtils.setField(filter, "tokenInitialLimit", 1);
+        ReflectionTestUtils.setField(filter, "tokenMinLimit", 1);
+        ReflectionTestUtils.setField(filter, "tokenMaxLimit", 1);
+        ReflectionTestUtils.setField(filter, "latencyTolerance", 1.5);
+        filter.createLimiters();
+    }
+
+    @Test
+    void fullClassIsShedWithRetryAfter() throws Exception {
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+
+        // A second login while the first still holds the only hashing slot
+        MockHttpServletResponse outer = perform("/api/auth/login",
+                (request, response) -> nested[0] = perform("/api/auth/login", (r, s) -> fail("should be shed")));
+
+        assertEquals(200, outer.getStatus());
+        assertEquals(503, nested[0].getStatus());
+        assertEquals("1", nested[0].getHeader("Retry-After"));
+        assertTrue(nested[0].getContentAsString().contains("busy"));
+        assertEquals(200, perform("/api/auth/login", (r, s) -> { }).getStatus(), "slot released afterwards");
+    }
+
+    @Test
+    void cheapRoutesKeepTheirOwnCapacityDuringAHashingBurst() throws Exception {
+        AtomicInteger served = new AtomicInteger();
+        MockHttpServletResponse[] profile = new MockHttpServletResponse[1];
+
+        perform("/api/auth/signup", (request, response) -> profile[0] =
+                perform("/api/auth/profile", (r, s) -> served.incrementAndGet()));
+
+        assertEquals(200, profile[0].getStatus());
+        assertEquals(1, served.get());
+    }
+
+    @Test
+    void otherPathsAreNotLimited() throws Exception {
+        AtomicInteger served = new AtomicInteger();
+
+        perform("/actuator/health", (request, response) ->
+                perform("/actuator/health", (r, s) -> served.incrementAndGet()));
+
+        assertEquals(1, served.get());
+    }
+
+    @Test
+    void slotIsReleasedWhenTheRequestFails() throws Exception {
+        assertThrows(IllegalStateException.class, () -> perform("/api/auth/login", (r, s) -> {
+            throw new IllegalStateException("handler failed");
+        }));
+
+        assertEquals(200, perform("/api/auth/login", (r, s) -> { }).getStatus());
+    }
+
+    private MockHttpServletResponse perform(String path, FilterChain chain) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,71 @@
+package com.signup.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DebugSamplingFilterTest {
+
+    private final Logger logger = new LoggerContext().getLogger("com.signup.Test");
+    private final DebugSamplingFilter filter = new DebugSamplingFilter();
+
+    @Test
+    void everyEventPassesWithoutSampling() {
+        logger.setLevel(Level.DEBUG);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(Level.DEBUG));
+        }
+    }
+
+    @Test
+    void enabledDebugEventsAreSampled() {
+        logger.setLevel(Level.TRACE);
+        filter.setSampleRate(10);
+
+        int kept = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (decide(i % 2 == 0 ? Level.DEBUG : Level.TRACE) == FilterReply.NEUTRAL) {
+                kept++;
+            }
+        }
+
+        assertTrue(kept > 700 && kept < 1_300, "about one in ten kept, was " + kept);
+    }
+
+    @Test
+    void infoAndAboveAreNeverSampled() {
+        logger.setLevel(Level.DEBUG);
+        filter.setSampleRate(1_000_000);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(Level.INFO));
+            assertEquals(FilterReply.NEUTRAL, decide(Level.ERROR));
+        }
+    }
+
+    @Test
+    void disabledDebugIsLeftToTheLevelCheck() {
+        logger.setLevel(Level.INFO);
+        filter.setSampleRate(1_000_000);
+
+        assertEquals(FilterReply.NEUTRAL, decide(Level.DEBUG));
+        assertFalse(logger.isDebugEnabled());
+    }
+
+    @Test
+    void sampleRateBelowOneMeansNoSampling() {
+        logger.setLevel(Level.DEBUG);
+        filter.setSampleRate(0);
+
+        assertEquals(FilterReply.NEUTRAL, decide(Level.DEBUG));
+    }
+
+    private FilterReply decide(Level level) {
+        return filter.decide(null, logger, level, "message", null, null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.signup.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonLogLayoutTest {
+
+    // The application's context, which carries the MDC adapter events read from
+    private final Logger logger = ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger("com.signup.Test");
+    private final JsonLogLayout layout = new JsonLogLayout();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void eventIsOneJsonObjectPerLine() throws Exception {
+        LoggingEvent event = new LoggingEvent("fqcn", logger, Level.INFO, "Signup for {}", null, new Object[] {"user@example.com"});
+        event.setThreadName("http-nio-8080-exec-1");
+        event.setTimeStamp(1_700_000_000_000L);
+
+        String line = layout.doLayout(event);
+
+        assertTrue(line.endsWith(System.lineSeparator()));
+        assertEquals(1, line.strip().lines().count());
+        JsonNode json = objectMapper.readTree(line);
+        assertEquals("2023-11-14T22:13:20Z", json.get("ts").asText());
+        assertEquals("INFO", json.get("level").asText());
+        assertEquals("http-nio-8080-exec-1", json.get("thread").asText());
+        assertEquals("com.signup.Test", json.get("logger").asText());
+        assertEquals("Signup for user@example.com", json.get("msg").asText());
+    }
+
+    @Test
+    void controlCharactersAndQuotesAreEscaped() throws Exception {
+        String message = "quote \" backslash \\ newline \n tab \t bell \u0007 é";
+        LoggingEvent event = new LoggingEvent("fqcn", logger, Level.WARN, message, null, null);
+
+        String line = layout.doLayout(event);
+
+        assertEquals(1, line.strip().lines().count(), "a message cannot break the line");
+        assertEquals(message, objectMapper.readTree(line).get("msg").asText());
+    }
+
+    @Test
+    void mdcEntriesAndStackTraceAreFields() throws Exception {
+        LoggingEvent event = new LoggingEvent("fqcn", logger, Level.ERROR, "Failed", new IllegalStateException("boom"), null);
+        event.setMDCPropertyMap(Map.of("requestId", "r-1"));
+
+        JsonNode json = objectMapper.readTree(layout.doLayout(event));
+
+        assertEquals("r-1", json.get("requestId").asText());
+        assertTrue(json.get("exception").asText().contains("java.lang.IllegalStateException: boom"));
+        assertTrue(json.get("exception").asText().contains("JsonLogLayoutTest"), "stack frames included");
+    }
+}
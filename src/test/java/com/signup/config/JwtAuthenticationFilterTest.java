@@ -0,0 +1,131 @@
+package com.signup.config;
+
+import com.signup.exception.DatabaseUnavailableException;
+import com.signup.service.AuthService;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Token handling per route, with AuthService stubbed.
+ */
+@DisabledInNativeImage // Mockito needs runtime class generation the native build doesn't have
+class JwtAuthenticationFilterTest {
+
+    private final AuthService authService = mock(AuthService.class);
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+    private final AtomicInteger parameterReads = new AtomicInteger();
+    private final FilterChain chain = mock(FilterChain.class);
+
+    JwtAuthenticationFilterTest() {
+        ReflectionTestUtils.setField(filter, "authService", authService);
+        when(authService.validateToken("good")).thenReturn(true);
+        when(authService.getUserEmailFromToken("good")).thenReturn("user@example.com");
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void publicRouteSkipsTokenWork() throws Exception {
+        MockHttpServletRequest request = request("/api/auth/login");
+        request.addHeader("Authorization", "Bearer good");
+        request.setParameter("token", "good");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        verify(chain).doFilter(any(), any());
+        verifyNoInteractions(authService);
+        assertEquals(0, parameterReads.get());
+        assertNull(authentication());
+    }
+
+    @Test
+    void headerTokenAuthenticates() throws Exception {
+        MockHttpServletRequest request = request("/api/auth/refresh");
+        request.addHeader("Authorization", "Bearer good");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertEquals("user@example.com", authentication().getName());
+        assertEquals(0, parameterReads.get());
+    }
+
+    @Test
+    void queryTokenIsIgnoredOnHeaderOnlyRoutes() throws Exception {
+        MockHttpServletRequest request = request("/api/auth/refresh");
+        request.setParameter("token", "good");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        verify(chain).doFilter(any(), any());
+        verifyNoInteractions(authService);
+        assertEquals(0, parameterReads.get(), "parameters are not parsed for a route that cannot use them");
+        assertNull(authentication());
+    }
+
+    @Test
+    void queryTokenAuthenticatesWhereTheRouteAllowsIt() throws Exception {
+        MockHttpServletRequest request = request("/api/auth/profile");
+        request.setParameter("token", "Bearer good");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertEquals("user@example.com", authentication().getName());
+    }
+
+    @Test
+    void invalidTokenLeavesTheRequestUnauthenticated() throws Exception {
+        MockHttpServletRequest request = request("/api/auth/refresh");
+        request.addHeader("Authorization", "Bearer forged");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        verify(chain).doFilter(any(), any()); // Spring Security then refuses it
+        verify(authService, never()).getUserEmailFromToken(anyString());
+        assertNull(authentication());
+    }
+
+    @Test
+    void uncheckableTokenIsAnsweredWith503() throws Exception {
+        when(authService.validateToken("good")).thenThrow(
+                new DatabaseUnavailableException("checking token epoch", DatabaseUnavailableException.Reason.TIMEOUT, null));
+        MockHttpServletRequest request = request("/api/auth/refresh");
+        request.addHeader("Authorization", "Bearer good");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        verifyNoInteractions(chain);
+    }
+
+    // Counts parameter reads, which on a real container can parse the query string and form body
+    private MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("POST", path) {
+            @Override
+            public String getParameter(String name) {
+                parameterReads.incrementAndGet();
+                return super.getParameter(name);
+            }
+        };
+    }
+
+    private static Authentication authentication() {
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
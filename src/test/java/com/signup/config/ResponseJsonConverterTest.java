@@ -0,0 +1,97 @@
+package com.signup.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.signup.dto.AuthResponse;
+import com.signup.dto.IntrospectResponse;
+import com.signup.dto.LogoutResponse;
+import com.signup.dto.ProfileResponse;
+import com.signup.dto.SignupResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseJsonConverterTest {
+
+    private final ResponseJsonConverter converter = new ResponseJsonConverter();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void bodiesMatchJackson() throws IOException {
+        List<Object> bodies = List.of(
+                new AuthResponse(false, "Invalid email or password", null, null),
+                new AuthResponse(true, "Login successful", "a.b.c", "d.e.f",
+                        new AuthResponse.UserInfo("user@example.com", "Zoë \"Z\" O'Neil")),
+                new AuthResponse(true, "Token refreshed", "a.b.c", null),
+                new ProfileResponse(false, "You are not an authenticated user. Token is required.", null),
+                new ProfileResponse(true, "Profile fetched successfully",
+                        new ProfileResponse.UserProfile(42L, "Line\nbreak\ttab", "9876543210", "user@example.com")),
+                new ProfileResponse(true, "Profile fetched successfully",
+                        new ProfileResponse.UserProfile(null, null, null, null)),
+                new SignupResponse("User registered successfully"),
+                new LogoutResponse(true, "Logged out successfully"),
+                new IntrospectResponse(Arrays.asList(
+                        new IntrospectResponse.TokenStatus(true, "user@example.com", 1_700_000_000L),
+                        new IntrospectResponse.TokenStatus(false, null, null))),
+                new IntrospectResponse(null));
+
+        for (Object body : bodies) {
+            assertEquals(objectMapper.writeValueAsString(body), write(body).getBodyAsString(), body.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void constantBodiesCarryTheirLength() throws IOException {
+        MockHttpOutputMessage failure = write(new AuthResponse(false, "Invalid email or password", null, null));
+        MockHttpOutputMessage again = write(new AuthResponse(false, "Invalid email or password", null, null));
+
+        assertEquals(failure.getBodyAsBytes().length, failure.getHeaders().getContentLength());
+        assertArrayEquals(failure.getBodyAsBytes(), again.getBodyAsBytes());
+    }
+
+    @Test
+    void constantBodiesDoNotMixTypesOrOutcomes() throws IOException {
+        // Same message, different bodies: each needs its own encoding
+        String auth = write(new AuthResponse(false, "Done", null, null)).getBodyAsString();
+        String profile = write(new ProfileResponse(false, "Done", null)).getBodyAsString();
+        String success = write(new LogoutResponse(true, "Done")).getBodyAsString();
+        String failure = write(new LogoutResponse(false, "Done")).getBodyAsString();
+
+        assertTrue(auth.contains("\"token\""));
+        assertFalse(profile.contains("\"token\""));
+        assertNotEquals(success, failure);
+    }
+
+    @Test
+    void bodiesWithUserDataAreNotMemoized() throws IOException {
+        MockHttpOutputMessage first = write(new AuthResponse(true, "Login successful", "a.b.c", null));
+        MockHttpOutputMessage second = write(new AuthResponse(true, "Login successful", "x.y.z", null));
+
+        assertEquals(-1, first.getHeaders().getContentLength());
+        assertTrue(second.getBodyAsString().contains("x.y.z"));
+    }
+
+    @Test
+    void encodeStatusMatchesTheLogoutShape() throws IOException {
+        assertEquals(objectMapper.writeValueAsString(new LogoutResponse(false, "The server is busy.")),
+                new String(ResponseJsonConverter.encodeStatus(false, "The server is busy."), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void requestBodiesAreLeftToJackson() {
+        assertFalse(converter.canRead(AuthResponse.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(String.class, MediaType.APPLICATION_JSON));
+    }
+
+    private MockHttpOutputMessage write(Object body) throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(body, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+}
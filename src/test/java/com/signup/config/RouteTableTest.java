@@ -0,0 +1,71 @@
+package com.signup.config;
+
+import org.junit.jupiter.api.Test;
+
+import static com.signup.config.RouteTable.Access.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteTableTest {
+
+    @Test
+    void exactPatternMatchesOnlyItsPath() {
+        RouteTable<String> table = new RouteTable<String>("default").add("login", "/api/auth/login");
+
+        assertEquals("login", table.lookup("/api/auth/login", 0));
+        assertEquals("default", table.lookup("/api/auth/login/extra", 0));
+        assertEquals("default", table.lookup("/api/auth/loginx", 0));
+        assertEquals("default", table.lookup("/api/auth", 0));
+    }
+
+    @Test
+    void subtreePatternMatchesItselfAndEverythingBelow() {
+        RouteTable<String> table = new RouteTable<String>("default").add("docs", "/swagger-ui/**");
+
+        assertEquals("docs", table.lookup("/swagger-ui", 0));
+        assertEquals("docs", table.lookup("/swagger-ui/index.html", 0));
+        assertEquals("docs", table.lookup("/swagger-ui/a/b/c.js", 0));
+        assertEquals("default", table.lookup("/swagger-uix/index.html", 0));
+    }
+
+    @Test
+    void mostSpecificPatternWins() {
+        RouteTable<String> table = new RouteTable<String>("default")
+                .add("api", "/api/**")
+                .add("auth", "/api/auth/**")
+                .add("login", "/api/auth/login");
+
+        assertEquals("login", table.lookup("/api/auth/login", 0));
+        assertEquals("auth", table.lookup("/api/auth/profile", 0));
+        assertEquals("auth", table.lookup("/api/auth/login/extra", 0));
+        assertEquals("api", table.lookup("/api/other", 0));
+        assertEquals("default", table.lookup("/other", 0));
+    }
+
+    @Test
+    void contextPathIsSkipped() {
+        RouteTable<String> table = new RouteTable<String>("default").add("login", "/api/auth/login");
+
+        assertEquals("login", table.lookup("/signup/api/auth/login", "/signup".length()));
+        assertEquals("default", table.lookup("/signup", "/signup".length()));
+    }
+
+    @Test
+    void unsupportedPatternsAreRefused() {
+        RouteTable<String> table = new RouteTable<>(null);
+
+        assertThrows(IllegalArgumentException.class, () -> table.add("x", "api/auth"));
+        assertThrows(IllegalArgumentException.class, () -> table.add("x", "/api/*/login"));
+        assertThrows(IllegalArgumentException.class, () -> table.add("x", "/api/**/login"));
+    }
+
+    @Test
+    void securityRoutesMatchTheSecurityConfig() {
+        for (String route : SecurityConfig.PUBLIC_ROUTES) {
+            assertEquals(PUBLIC, SecurityConfig.ROUTES.lookup(route.replace("/**", "/x"), 0), route);
+        }
+        assertEquals(QUERY_TOKEN, SecurityConfig.ROUTES.lookup("/api/auth/profile", 0));
+        assertEquals(QUERY_TOKEN, SecurityConfig.ROUTES.lookup("/api/auth/logout", 0));
+        assertEquals(HEADER_TOKEN, SecurityConfig.ROUTES.lookup("/api/auth/refresh", 0));
+        assertEquals(HEADER_TOKEN, SecurityConfig.ROUTES.lookup("/api/auth/users/lookup/extra", 0));
+    }
+}
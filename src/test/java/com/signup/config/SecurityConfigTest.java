@@ -0,0 +1,65 @@
+package com.signup.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The 403 body written for requests the security chain rejects.
+ */
+class SecurityConfigTest {
+
+    private final AtomicInteger parameterReads = new AtomicInteger();
+
+    @Test
+    void missingTokenIsReportedAsRequired() throws IOException {
+        MockHttpServletResponse response = forbidden(request("/api/auth/refresh"));
+
+        assertEquals(403, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Token is required"));
+    }
+
+    @Test
+    void headerTokenIsReportedAsInvalid() throws IOException {
+        MockHttpServletRequest request = request("/api/auth/refresh");
+        request.addHeader("Authorization", "Bearer forged");
+
+        assertTrue(forbidden(request).getContentAsString().contains("Invalid or expired token"));
+        assertEquals(0, parameterReads.get());
+    }
+
+    @Test
+    void queryTokenCountsOnlyWhereTheRouteReadsIt() throws IOException {
+        MockHttpServletRequest profile = request("/api/auth/profile");
+        profile.setParameter("token", "forged");
+        assertTrue(forbidden(profile).getContentAsString().contains("Invalid or expired token"));
+        assertEquals(1, parameterReads.getAndSet(0));
+
+        MockHttpServletRequest refresh = request("/api/auth/refresh");
+        refresh.setParameter("token", "forged");
+        assertTrue(forbidden(refresh).getContentAsString().contains("Token is required"));
+        assertEquals(0, parameterReads.get(), "parameters are not parsed for a route that cannot use them");
+    }
+
+    private static MockHttpServletResponse forbidden(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        SecurityConfig.writeForbidden(request, response);
+        return response;
+    }
+
+    // Counts parameter reads, which on a real container can parse the query string and form body
+    private MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("POST", path) {
+            @Override
+            public String getParameter(String name) {
+                parameterReads.incrementAndGet();
+                return super.getParameter(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package com.signup.controller;
+
+import com.signup.dto.SignupRequest;
+import com.signup.service.AuthService;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * API keys on the endpoints other services call without a user token.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "auth.introspection.api-key=test-introspection-key",
+    "auth.user-lookup.api-key=test-lookup-key"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthControllerTest {
+
+    private static final String INTROSPECT_BODY = "{\"tokens\":[\"a.b.c\"]}";
+    private static final String LOOKUP_EMAIL = "lookup-" + UUID.randomUUID() + "@example.com";
+    private static final String LOOKUP_BODY = "{\"emails\":[\"" + LOOKUP_EMAIL + "\"]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void introspectionWithoutKeyIsRejected() throws Exception {
+        mockMvc.perform(post("/api/auth/introspect").contentType(MediaType.APPLICATION_JSON).content(INTROSPECT_BODY))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void introspectionWithWrongKeyIsRejected() throws Exception {
+        mockMvc.perform(post("/api/auth/introspect").contentType(MediaType.APPLICATION_JSON).content(INTROSPECT_BODY)
+                .header("X-Introspection-Key", "wrong-key"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void introspectionWithKeyIsAnswered() throws Exception {
+        mockMvc.perform(post("/api/auth/introspect").contentType(MediaType.APPLICATION_JSON).content(INTROSPECT_BODY)
+                .header("X-Introspection-Key", "test-introspection-key"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void userLookupWithoutKeyIsRejected() throws Exception {
+        signUp(LOOKUP_EMAIL);
+
+        mockMvc.perform(post("/api/auth/users/lookup").contentType(MediaType.APPLICATION_JSON).content(LOOKUP_BODY))
+            .andExpect(status().isUnauthorized())
+            .andExpect(content().string(not(containsString(LOOKUP_EMAIL))));
+        mockMvc.perform(post("/api/auth/users/lookup").contentType(MediaType.APPLICATION_JSON).content(LOOKUP_BODY)
+                .header("X-User-Lookup-Key", "wrong-key"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void userLookupWithKeyIsAnswered() throws Exception {
+        signUp(LOOKUP_EMAIL);
+
+        mockMvc.perform(post("/api/auth/users/lookup").contentType(MediaType.APPLICATION_JSON).content(LOOKUP_BODY)
+                .header("X-User-Lookup-Key", "test-lookup-key"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString(LOOKUP_EMAIL)));
+    }
+
+    // Both lookup tests use the same user; the second signup is refused as a duplicate
+    private void signUp(String email) {
+        String contactNumber = String.valueOf(ThreadLocalRandom.current().nextLong(6_000_000_000L, 7_000_000_000L));
+        authService.signup(new SignupRequest("Lookup Test", contactNumber, email, "Lookup-pass1"));
+    }
+
+    @Nested
+    @TestPropertySource(properties = {"auth.introspection.api-key=", "auth.user-lookup.api-key="})
+    class WithoutConfiguredKeys {
+
+        // This class runs in its own context; the enclosing mockMvc belongs to the keyed one
+        @Autowired
+        private MockMvc unkeyedMvc;
+
+        @Test
+        void introspectionIsRefused() throws Exception {
+            unkeyedMvc.perform(post("/api/auth/introspect").contentType(MediaType.APPLICATION_JSON).content(INTROSPECT_BODY)
+                    .header("X-Introspection-Key", ""))
+                .andExpect(status().isForbidden());
+        }
+
+        @Test
+        void userLookupIsRefused() throws Exception {
+            unkeyedMvc.perform(post("/api/auth/users/lookup").contentType(MediaType.APPLICATION_JSON).content(LOOKUP_BODY))
+                .andExpect(status().isForbidden());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.signup.controller;
+
+import com.signup.dto.AuthResponse;
+import com.signup.dto.LoginRequest;
+import com.signup.dto.SignupRequest;
+import com.signup.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag and Last-Modified on the profile endpoint.
+ */
+@SpringBootTest
+@TestPropertySource(properties = "profile.version-cache.ttl-ms=0") // Every request sees updated_at as stored
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisabledInNativeImage // Mockito needs runtime class generation the native build doesn't have
+class ProfileConditionalGetTest {
+
+    private static final String PASSWORD = "Profile-pass1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private AuthService authService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void profileCarriesItsVersion() throws Exception {
+        String token = signUpAndLogIn(newEmail());
+
+        mockMvc.perform(get("/api/auth/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+            .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION));
+    }
+
+    @Test
+    void unchangedProfileIsNotModifiedWithoutReadingTheRow() throws Exception {
+        String token = signUpAndLogIn(newEmail());
+        MvcResult first = fetch(token, null);
+        clearInvocations(authService);
+
+        mockMvc.perform(get("/api/auth/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(HttpHeaders.IF_NONE_MATCH, first.getResponse().getHeader(HttpHeaders.ETAG)))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+        mockMvc.perform(get("/api/auth/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(HttpHeaders.IF_MODIFIED_SINCE, first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED)))
+            .andExpect(status().isNotModified());
+
+        verify(authService, never()).getProfile(anyString());
+    }
+
+    @Test
+    void changedProfileIsSentWithItsNewVersion() throws Exception {
+        String email = newEmail();
+        String token = signUpAndLogIn(email);
+        String etag = fetch(token, null).getResponse().getHeader(HttpHeaders.ETAG);
+
+        touch(email);
+
+        MvcResult changed = fetch(token, etag);
+        assertEquals(200, changed.getResponse().getStatus());
+        assertNotEquals(etag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(changed.getResponse().getContentAsString().contains(email));
+    }
+
+    @Test
+    void anotherUsersVersionDoesNotMatch() throws Exception {
+        String first = signUpAndLogIn(newEmail());
+        String second = signUpAndLogIn(newEmail());
+        MvcResult firstProfile = fetch(first, null);
+
+        MvcResult secondProfile = fetch(second, firstProfile.getResponse().getHeader(HttpHeaders.ETAG));
+
+        assertEquals(200, secondProfile.getResponse().getStatus());
+    }
+
+    @Test
+    void invalidTokenIsRejectedEvenWhenConditional() throws Exception {
+        String token = signUpAndLogIn(newEmail());
+        String etag = fetch(token, null).getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/auth/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isForbidden()); // Refused by the security chain, before any version check
+    }
+
+    private MvcResult fetch(String token, String ifNoneMatch) throws Exception {
+        var request = get("/api/auth/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn();
+    }
+
+    private String signUpAndLogIn(String email) {
+        String contactNumber = String.valueOf(ThreadLocalRandom.current().nextLong(5_000_000_000L, 6_000_000_000L));
+        assertTrue(authService.signup(new SignupRequest("Profile Test", contactNumber, email, PASSWORD)));
+        AuthResponse session = authService.login(new LoginRequest(email, PASSWORD));
+        assertTrue(session.isSuccess());
+        return session.getToken();
+    }
+
+    // A profile change, as far as versioning goes: updated_at moves on
+    private void touch(String email) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE users SET updated_at = DATEADD('SECOND', 5, updated_at) WHERE email = ?")) {
+            statement.setString(1, email);
+            assertEquals(1, statement.executeUpdate());
+        }
+    }
+
+    private static String newEmail() {
+        return "profile-" + UUID.randomUUID() + "@example.com";
+    }
+}
@@ -0,0 +1,83 @@
+package com.signup.controller;
+
+import com.signup.service.RevocationFeed;
+import com.signup.util.EmailUtil;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@TestPropertySource(properties = "revocation-feed.api-key=test-feed-key")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RevocationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RevocationFeed revocationFeed;
+
+    @Test
+    void streamWithoutKeyIsRejected() throws Exception {
+        mockMvc.perform(get("/api/auth/revocations"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/auth/revocations").header("X-Revocation-Feed-Key", "wrong-key"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void eventsNameUsersByFingerprintOnly() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/auth/revocations")
+                .header("X-Revocation-Feed-Key", "test-feed-key"))
+            .andExpect(request().asyncStarted())
+            .andReturn().getResponse();
+
+        revocationFeed.publishEpoch("watched@example.com", 7, null);
+
+        String events = awaitContent(response, "\"epoch\":7");
+        assertFalse(events.contains("watched@example.com"), events);
+        String fingerprint = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(EmailUtil.lookupHash("watched@example.com"));
+        assertTrue(events.contains("\"subject\":\"" + fingerprint + "\""), events);
+    }
+
+    // Events are written by the feed's dispatcher thread
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = response.getContentAsString();
+        }
+        return content;
+    }
+
+    @Nested
+    @TestPropertySource(properties = "revocation-feed.api-key=")
+    class WithoutConfiguredKey {
+
+        // This class runs in its own context; the enclosing mockMvc belongs to the keyed one
+        @Autowired
+        private MockMvc unkeyedMvc;
+
+        @Test
+        void streamIsRefused() throws Exception {
+            unkeyedMvc.perform(get("/api/auth/revocations"))
+                .andExpect(status().isForbidden());
+        }
+    }
+}
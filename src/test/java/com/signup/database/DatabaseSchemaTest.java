@@ -0,0 +1,40 @@
+package com.signup.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Schema upgrade helpers against a bare H2 database in MySQL mode.
+ */
+class DatabaseSchemaTest {
+
+    @Test
+    void existingIndexIsNotAnError() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:schema-index;MODE=MySQL");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, email_hash BINARY(16))");
+
+            assertTrue(DatabaseService.createIndexIfMissing(statement,
+                    "CREATE INDEX idx_users_email_hash ON users (email_hash)"));
+            assertTrue(DatabaseService.createIndexIfMissing(statement,
+                    "CREATE INDEX idx_users_email_hash ON users (email_hash)"));
+        }
+    }
+
+    @Test
+    void otherIndexFailuresAreReported() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:schema-missing;MODE=MySQL");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id BIGINT PRIMARY KEY)");
+
+            assertFalse(DatabaseService.createIndexIfMissing(statement,
+                    "CREATE INDEX idx_users_epoch_changed_at ON users (epoch_changed_at)"));
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.signup.database;
+
+import com.signup.exception.DatabaseUnavailableException;
+import com.signup.exception.DatabaseUnavailableException.Reason;
+import com.signup.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DatabaseService against H2 behind a DataSource that can refuse connections,
+ * stall queries or fail them with an Error, standing in for a database outage.
+ */
+@SpringBootTest(properties = {
+    "database.query-timeout-seconds=1",
+    "database.circuit-breaker.failure-threshold=3",
+    "database.circuit-breaker.open-ms=200",
+    "auth.epoch-sync.interval-ms=3600000" // The background epoch sync would compete for the breaker's trial call
+})
+@ActiveProfiles("test")
+@DisabledInNativeImage // JDK proxies around JDBC need reflection hints the native build doesn't carry
+class DatabaseServiceFaultTest {
+
+    private static final long OPEN_MILLIS = 200;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    // Not a bean: a second DataSource bean would switch off the auto-configured one
+    private static final FaultInjectingDataSource faults = new FaultInjectingDataSource();
+
+    @AfterEach
+    void recover() throws InterruptedException {
+        faults.heal();
+        Thread.sleep(OPEN_MILLIS + 50);
+        databaseService.emailExists(newEmail()); // Trial call closes a breaker left open
+    }
+
+    @Test
+    void failureIsReportedNotMistakenForMissingUser() {
+        String email = saveNewUser();
+        faults.refuseConnections();
+
+        DatabaseUnavailableException e = assertThrows(DatabaseUnavailableException.class,
+                () -> databaseService.findUserByEmail(email));
+        assertEquals(Reason.ERROR, e.getReason());
+        assertThrows(DatabaseUnavailableException.class, () -> databaseService.emailExists(email));
+    }
+
+    @Test
+    void breakerFailsFastThenRecovers() throws InterruptedException {
+        String email = saveNewUser();
+        faults.refuseConnections();
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DatabaseUnavailableException.class, () -> databaseService.findUserByEmail(email));
+        }
+
+        int attempts = faults.connectionAttempts();
+        DatabaseUnavailableException e = assertThrows(DatabaseUnavailableException.class,
+                () -> databaseService.findUserByEmail(email));
+        assertEquals(Reason.CIRCUIT_OPEN, e.getReason());
+        assertEquals(attempts, faults.connectionAttempts(), "open breaker must not touch the database");
+
+        faults.heal();
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertTrue(databaseService.findUserByEmail(email).isPresent());
+    }
+
+    @Test
+    void lateFailureOfOrdinaryCallDoesNotAdmitSecondTrial() throws Exception {
+        String email = saveNewUser();
+        faults.delayQueries(5_000);
+        long started = System.currentTimeMillis();
+        // Admitted while closed; times out (1 s) only after the breaker has opened and a trial is running
+        CompletableFuture<Void> straggler = CompletableFuture.runAsync(() ->
+                assertThrows(DatabaseUnavailableException.class, () -> databaseService.findTokenEpoch(email)));
+        Thread.sleep(100);
+
+        faults.refuseConnections();
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DatabaseUnavailableException.class, () -> databaseService.emailExists(newEmail()));
+        }
+        Thread.sleep(Math.max(0, started + 600 - System.currentTimeMillis()));
+        faults.heal();
+        faults.delayQueries(5_000);
+        // The trial: holds the half-open slot until its own timeout, about 1.6 s in
+        CompletableFuture<Void> trial = CompletableFuture.runAsync(() ->
+                assertThrows(DatabaseUnavailableException.class, () -> databaseService.emailExists(newEmail())));
+
+        straggler.get(5, TimeUnit.SECONDS);
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertFalse(trial.isDone(), "trial should still be running");
+        int attempts = faults.connectionAttempts();
+        DatabaseUnavailableException e = assertThrows(DatabaseUnavailableException.class,
+                () -> databaseService.emailExists(newEmail()));
+        assertEquals(Reason.CIRCUIT_OPEN, e.getReason());
+        assertEquals(attempts, faults.connectionAttempts(), "only one trial may reach the database");
+        trial.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void errorInTrialCallStillReleasesTheTrial() throws InterruptedException {
+        faults.refuseConnections();
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DatabaseUnavailableException.class, () -> databaseService.emailExists(newEmail()));
+        }
+        faults.heal();
+        faults.failQueriesWith(new OutOfMemoryError("Java heap space (injected)"));
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        assertThrows(OutOfMemoryError.class, () -> databaseService.emailExists(newEmail())); // The trial
+        faults.heal();
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        assertFalse(databaseService.emailExists(newEmail()), "the next trial is admitted and closes the breaker");
+    }
+
+    @Test
+    void slowQueryTimesOut() {
+        String email = saveNewUser();
+        faults.delayQueries(5_000);
+
+        DatabaseUnavailableException e = assertThrows(DatabaseUnavailableException.class,
+                () -> databaseService.findTokenEpoch(email));
+        assertEquals(Reason.TIMEOUT, e.getReason());
+    }
+
+    @Test
+    void profileFallsBackToLastKnownUser() {
+        String email = saveNewUser();
+        assertTrue(databaseService.findUserByEmail(email).isPresent());
+        faults.refuseConnections();
+
+        User lastKnown = databaseService.findUserByEmailOrLastKnown(email).orElseThrow();
+        assertEquals(email, lastKnown.getEmail());
+        assertNull(lastKnown.getPassword());
+        assertThrows(DatabaseUnavailableException.class,
+                () -> databaseService.findUserByEmailOrLastKnown(newEmail()));
+    }
+
+    @Test
+    void duplicateSignupIsRefusedWithoutOpeningBreaker() {
+        String email = newEmail();
+        User user = new User("Fault Test", contactNumber(), email, "hash");
+        assertTrue(databaseService.saveUser(user));
+        for (int i = 0; i < 3; i++) {
+            assertFalse(databaseService.saveUser(new User("Fault Test", contactNumber(), email, "hash")));
+        }
+        assertTrue(databaseService.findUserByEmail(email).isPresent());
+    }
+
+    private String saveNewUser() {
+        String email = newEmail();
+        assertTrue(databaseService.saveUser(new User("Fault Test", contactNumber(), email, "hash")));
+        return email;
+    }
+
+    private static String newEmail() {
+        return "fault-" + UUID.randomUUID() + "@example.com";
+    }
+
+    private static String contactNumber() {
+        return String.valueOf(9_000_000_000L + (long) (Math.random() * 999_999_999L));
+    }
+
+    @TestConfiguration
+    static class Faults {
+
+        @Bean
+        static BeanPostProcessor wrapDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if ("dataSource".equals(beanName) && bean instanceof DataSource target) {
+                        faults.target = target;
+                        return faults;
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    // Delegates to H2 unless told to refuse connections or stall statements
+    static class FaultInjectingDataSource implements DataSource {
+
+        private volatile DataSource target;
+        private volatile boolean refusing;
+        private volatile long queryDelayMillis;
+        private volatile Error queryError;
+        private final AtomicInteger connectionAttempts = new AtomicInteger();
+
+        void refuseConnections() {
+            refusing = true;
+        }
+
+        void delayQueries(long millis) {
+            queryDelayMillis = millis;
+        }
+
+        void failQueriesWith(Error error) {
+            queryError = error;
+        }
+
+        void heal() {
+            refusing = false;
+            queryDelayMillis = 0;
+            queryError = null;
+        }
+
+        int connectionAttempts() {
+            return connectionAttempts.get();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            connectionAttempts.incrementAndGet();
+            if (refusing) {
+                throw new SQLNonTransientConnectionException("Connection refused (injected)");
+            }
+            return wrap(target.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        private Connection wrap(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        return result instanceof Statement statement ? wrap(statement, method.getReturnType()) : result;
+                    });
+        }
+
+        // Statement whose executions take queryDelayMillis, failing as a driver would past its query timeout
+        private Object wrap(Statement statement, Class<?> type) {
+            int[] timeoutSeconds = {0};
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("setQueryTimeout")) {
+                            timeoutSeconds[0] = (int) args[0];
+                        } else if (method.getName().startsWith("execute") && queryError != null) {
+                            throw queryError;
+                        } else if (method.getName().startsWith("execute") && queryDelayMillis > 0) {
+                            long timeoutMillis = timeoutSeconds[0] * 1000L;
+                            if (timeoutMillis > 0 && queryDelayMillis > timeoutMillis) {
+                                Thread.sleep(timeoutMillis);
+                                throw new SQLTimeoutException("Query timed out (injected)");
+                            }
+                            Thread.sleep(queryDelayMillis);
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return target.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            target.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            target.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return target.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return target.getParentLogger();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) throws SQLException {
+            return type.isInstance(this) ? type.cast(this) : target.unwrap(type);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> type) throws SQLException {
+            return type.isInstance(this) || target.isWrapperFor(type);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.signup.database;
+
+import com.signup.dto.SignupRequest;
+import com.signup.model.User;
+import com.signup.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Multi-get lookups by id and email, against the test profile's H2 database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MultiGetTest {
+
+    private static final String PASSWORD = "Test-pass1";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Test
+    void lookupAnswersInRequestOrder() {
+        String first = signUp();
+        String second = signUp();
+        long firstId = databaseService.findUserByEmail(first).orElseThrow().getId();
+        long secondId = databaseService.findUserByEmail(second).orElseThrow().getId();
+
+        List<User> byId = databaseService.findUsersById(List.of(secondId, -1L, firstId));
+        List<User> byEmail = databaseService.findUsersByEmail(List.of(first.toUpperCase(), newEmail(), second, first));
+
+        assertEquals(3, byId.size());
+        assertEquals(second, byId.get(0).getEmail());
+        assertNull(byId.get(1));
+        assertEquals(first, byId.get(2).getEmail());
+        assertEquals(4, byEmail.size());
+        assertEquals(firstId, byEmail.get(0).getId());
+        assertNull(byEmail.get(1));
+        assertEquals(secondId, byEmail.get(2).getId());
+        assertEquals(firstId, byEmail.get(3).getId(), "repeated keys are answered each time");
+        byId.stream().filter(user -> user != null).forEach(user -> assertNull(user.getPassword()));
+        byEmail.stream().filter(user -> user != null).forEach(user -> assertNull(user.getPassword()));
+    }
+
+    @Test
+    void lookupSpanningSeveralChunksFindsEveryUser() {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            emails.add(signUp()); // Signed up but never looked up, so none is cached and every one goes to the IN queries
+        }
+        emails.add(1, newEmail());
+        ReflectionTestUtils.setField(databaseService, "multiGetChunkSize", 2);
+        try {
+            List<User> users = databaseService.findUsersByEmail(emails);
+
+            for (int i = 0; i < emails.size(); i++) {
+                if (i == 1) {
+                    assertNull(users.get(i));
+                } else {
+                    assertEquals(emails.get(i), users.get(i).getEmail());
+                }
+            }
+        } finally {
+            ReflectionTestUtils.setField(databaseService, "multiGetChunkSize", 100);
+        }
+    }
+
+    private String signUp() {
+        String email = newEmail();
+        String contactNumber = String.valueOf(ThreadLocalRandom.current().nextLong(6_000_000_000L, 7_000_000_000L));
+        assertTrue(authService.signup(new SignupRequest("Multi-get Test", contactNumber, email, PASSWORD)));
+        return email;
+    }
+
+    private static String newEmail() {
+        return "multiget-" + UUID.randomUUID() + "@example.com";
+    }
+}
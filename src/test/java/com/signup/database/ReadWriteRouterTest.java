@@ -0,0 +1,97 @@
+package com.signup.database;
+
+import com.signup.model.User;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Read/write routing on the local-replica profile: a primary and a replica pool on H2.
+ */
+@SpringBootTest
+@ActiveProfiles({"test", "local-replica"})
+class ReadWriteRouterTest {
+
+    @Autowired
+    private ReadWriteRouter router;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Test
+    void readsGoToAReplicaThatIsKeepingUp() {
+        router.checkReplicas();
+
+        DataSource read = router.forRead(newEmail());
+        assertNotSame(router.forWrite(), read);
+        assertTrue(((HikariDataSource) read).getPoolName().startsWith("replica-"));
+    }
+
+    @Test
+    void writtenKeyIsReadFromThePrimary() {
+        router.checkReplicas();
+        String email = newEmail();
+
+        router.recordWrite(email);
+
+        assertSame(router.forWrite(), router.forRead(email));
+        assertNotSame(router.forWrite(), router.forRead(newEmail()), "other keys stay on the replica");
+    }
+
+    @Test
+    void signupIsVisibleToTheLoginThatFollows() {
+        router.checkReplicas();
+        String email = newEmail();
+
+        assertTrue(databaseService.saveUser(new User("Router Test", contactNumber(), email, "hash")));
+
+        assertSame(router.forWrite(), router.forRead(email));
+        assertTrue(databaseService.findUserByEmail(email).isPresent());
+    }
+
+    @Test
+    void epochAdvanceIsReadBackFromThePrimary() {
+        router.checkReplicas();
+        String email = newEmail();
+        assertTrue(databaseService.saveUser(new User("Router Test", contactNumber(), email, "hash")));
+        long before = databaseService.findTokenEpoch(email);
+
+        assertEquals(before + 1, databaseService.advanceTokenEpoch(email));
+        assertEquals(before + 2, databaseService.advanceTokenEpoch(email));
+        assertEquals(-1, databaseService.advanceTokenEpoch(newEmail()));
+    }
+
+    private static String newEmail() {
+        return "router-" + UUID.randomUUID() + "@example.com";
+    }
+
+    private static String contactNumber() {
+        return String.valueOf(ThreadLocalRandom.current().nextLong(5_000_000_000L, 6_000_000_000L));
+    }
+
+    @Nested
+    @TestPropertySource(properties = "datasource.replica.urls=jdbc:h2:mem:detached-replica;MODE=MySQL;DB_CLOSE_DELAY=-1")
+    class WithReplicaMissingTheHeartbeat {
+
+        // This class runs in its own context; the enclosing router belongs to the healthy one
+        @Autowired
+        private ReadWriteRouter detachedRouter;
+
+        @Test
+        void replicaIsKeptOutOfRotation() {
+            detachedRouter.checkReplicas();
+
+            assertSame(detachedRouter.forWrite(), detachedRouter.forRead(newEmail()));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.signup.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * SessionJournal restarts against a stubbed database.
+ */
+@DisabledInNativeImage // Mockito needs runtime class generation the native build doesn't have
+class SessionJournalTest {
+
+    private static final long MARGIN = 300_000;
+
+    @TempDir
+    Path directory;
+
+    private final DatabaseService databaseService = mock(DatabaseService.class);
+    private final UserShards shards = mock(UserShards.class);
+    private final List<SessionJournal> journals = new ArrayList<>();
+
+    // Lets snapshots still being written finish before the directory is removed
+    @AfterEach
+    void closeJournals() throws InterruptedException {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("session-snapshot")) {
+                thread.join(5_000);
+            }
+        }
+        journals.forEach(SessionJournal::close);
+    }
+
+    @Test
+    void reconcilesFromTheRecordedDatabaseWatermarks() throws Exception {
+        when(shards.count()).thenReturn(2);
+        SessionJournal first = startedJournal();
+        first.recordEpoch("a@example.com", 3);
+        first.recordWatermarks(new long[] {1_000_000, 2_000_000});
+        first.close();
+        when(databaseService.findTokenEpochChanges(any(), any(), anyLong(), anyInt()))
+            .thenReturn(new DatabaseService.EpochChanges(Map.of("a@example.com", 4L), new long[] {1_000_500, 2_000_000}, null));
+
+        Map<String, Long> epochs = new HashMap<>();
+        journal().restore(epochs, new HashMap<>());
+
+        verify(databaseService).findTokenEpochChanges(aryEq(new long[] {1_000_000, 2_000_000}), isNull(), eq(MARGIN), anyInt());
+        assertEquals(4L, epochs.get("a@example.com"));
+    }
+
+    @Test
+    void epochsWithoutAWatermarkAreDiscarded() throws Exception {
+        when(shards.count()).thenReturn(1);
+        SessionJournal first = startedJournal();
+        first.recordEpoch("a@example.com", 3);
+        first.close();
+
+        Map<String, Long> epochs = new HashMap<>();
+        journal().restore(epochs, new HashMap<>());
+
+        assertTrue(epochs.isEmpty());
+        verify(databaseService, never()).findTokenEpochChanges(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void epochsAreDiscardedWhenTheDatabaseCannotBeRead() throws Exception {
+        when(shards.count()).thenReturn(1);
+        SessionJournal first = startedJournal();
+        first.recordEpoch("a@example.com", 3);
+        first.recordWatermarks(new long[] {1_000_000});
+        first.close();
+        when(databaseService.findTokenEpochChanges(any(), any(), anyLong(), anyInt())).thenReturn(null);
+
+        Map<String, Long> epochs = new HashMap<>();
+        journal().restore(epochs, new HashMap<>());
+
+        assertTrue(epochs.isEmpty());
+    }
+
+    @Test
+    void epochsAreDiscardedWhenTheShardsChanged() throws Exception {
+        when(shards.count()).thenReturn(1);
+        SessionJournal first = startedJournal();
+        first.recordEpoch("a@example.com", 3);
+        first.recordWatermarks(new long[] {1_000_000});
+        first.close();
+        when(shards.count()).thenReturn(2);
+
+        Map<String, Long> epochs = new HashMap<>();
+        journal().restore(epochs, new HashMap<>());
+
+        assertTrue(epochs.isEmpty());
+        verify(databaseService, never()).findTokenEpochChanges(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void snapshotKeepsTheWatermarks() throws Exception {
+        when(shards.count()).thenReturn(1);
+        when(databaseService.findTokenEpochChanges(any(), any(), anyLong(), anyInt()))
+            .thenReturn(new DatabaseService.EpochChanges(Map.of(), new long[] {5_000_000}, null));
+        SessionJournal first = startedJournal();
+        first.recordEpoch("a@example.com", 3);
+        first.recordWatermarks(new long[] {5_000_000});
+        first.close();
+
+        // Replays the journal, then snapshots it and starts an empty one
+        Map<String, Long> epochs = new HashMap<>();
+        SessionJournal second = journal();
+        second.restore(epochs, new HashMap<>());
+        awaitSnapshot(second);
+        second.close();
+
+        Map<String, Long> restored = new HashMap<>();
+        journal().restore(restored, new HashMap<>());
+
+        assertEquals(3L, restored.get("a@example.com"));
+        verify(databaseService, times(2)).findTokenEpochChanges(aryEq(new long[] {5_000_000}), isNull(), eq(MARGIN), anyInt());
+    }
+
+    @Test
+    void unreadableJournalIsRestoredByALaterMaintenancePass() throws Exception {
+        when(shards.count()).thenReturn(1);
+        Path blocked = directory.resolve("blocked");
+        Files.writeString(blocked, "a file where the journal directory should be");
+        SessionJournal journal = journal();
+        ReflectionTestUtils.setField(journal, "directory", blocked.toString());
+        journal.restore(new HashMap<>(), new HashMap<>());
+        journal.maintain(); // Retries, and fails again
+
+        assertNull(ReflectionTestUtils.getField(journal, "buffer"), "journaling is off while the files can't be read");
+
+        Files.delete(blocked);
+        journal.maintain();
+
+        awaitSnapshot(journal);
+        assertTrue(Files.exists(blocked.resolve("journal")));
+    }
+
+    // A journal restored from an empty directory, open for appends
+    private SessionJournal startedJournal() throws Exception {
+        SessionJournal journal = journal();
+        journal.restore(new HashMap<>(), new HashMap<>());
+        awaitSnapshot(journal);
+        return journal;
+    }
+
+    private SessionJournal journal() {
+        SessionJournal journal = new SessionJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", directory.toString());
+        ReflectionTestUtils.setField(journal, "fsyncInterval", 0L);
+        ReflectionTestUtils.setField(journal, "compactThresholdMb", 1);
+        ReflectionTestUtils.setField(journal, "reconcileMargin", MARGIN);
+        ReflectionTestUtils.setField(journal, "restoreRetryInterval", 0L);
+        ReflectionTestUtils.setField(journal, "databaseService", databaseService);
+        ReflectionTestUtils.setField(journal, "shards", shards);
+        journals.add(journal);
+        return journal;
+    }
+
+    // restore() snapshots on a background thread, which opens the journal and then writes the snapshot
+    private static void awaitSnapshot(SessionJournal journal) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (ReflectionTestUtils.getField(journal, "buffer") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        synchronized (ReflectionTestUtils.getField(journal, "compactionLock")) {
+            assertNotNull(ReflectionTestUtils.getField(journal, "buffer"), "journal never opened");
+        }
+    }
+}
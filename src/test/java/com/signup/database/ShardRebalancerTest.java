@@ -0,0 +1,141 @@
+package com.signup.database;
+
+import com.signup.dto.SignupRequest;
+import com.signup.model.User;
+import com.signup.service.AuthService;
+import com.signup.util.EmailUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Users split across the three in-memory H2 shards of the local-shards profile.
+ */
+@SpringBootTest
+@ActiveProfiles({"test", "local-shards"})
+class ShardRebalancerTest {
+
+    @Autowired
+    private UserShards shards;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void signupsLandOnTheirOwnerShard() throws SQLException {
+        assertEquals(3, shards.count());
+        for (int i = 0; i < 12; i++) {
+            String email = newEmail();
+            assertTrue(databaseService.saveUser(new User("Shard Test", contactNumber(), email, "hash")));
+
+            for (int shard = 0; shard < shards.count(); shard++) {
+                assertEquals(shard == shards.shardOf(email) ? 1 : 0, rowsWithEmail(shard, email), "shard " + shard);
+            }
+        }
+    }
+
+    @Test
+    void emailIsUniqueAcrossShards() throws SQLException {
+        String email = newEmail();
+        assertTrue(authService.signup(new SignupRequest("Shard Test", contactNumber(), email, "Shard-pass1")));
+
+        // Every spelling of the address is routed to the same shard, where its UNIQUE index applies
+        assertFalse(authService.signup(new SignupRequest("Shard Test", contactNumber(), " " + email.toUpperCase(), "Shard-pass1")));
+        assertFalse(databaseService.saveUser(new User("Shard Test", contactNumber(), email, "hash")));
+        int total = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            total += rowsWithEmail(shard, email);
+        }
+        assertEquals(1, total);
+    }
+
+    @Test
+    void rebalanceMovesMisplacedUsersToTheirOwner() throws SQLException {
+        String email = newEmail();
+        int owner = shards.shardOf(email);
+        int misplaced = (owner + 1) % shards.count();
+        insert(misplaced, ThreadLocalRandom.current().nextLong(1L << 40, 1L << 50), email);
+        assertTrue(databaseService.findUserByEmail(email).isEmpty(), "lookups only ask the owner");
+
+        rebalancer.rebalance();
+
+        assertEquals(0, rowsWithEmail(misplaced, email));
+        assertEquals(1, rowsWithEmail(owner, email));
+        assertTrue(databaseService.findUserByEmail(email).isPresent());
+    }
+
+    @Test
+    void rebalanceLeavesAConflictingUserInPlaceAndMovesTheRest() throws SQLException {
+        String conflicting = newEmail();
+        int owner = shards.shardOf(conflicting);
+        int misplaced = (owner + 1) % shards.count();
+        assertTrue(databaseService.saveUser(new User("Shard Test", contactNumber(), conflicting, "hash")));
+        insert(misplaced, ThreadLocalRandom.current().nextLong(1L << 40, 1L << 50), conflicting);
+        String movable = newEmailOwnedBy((misplaced + 1) % shards.count());
+        insert(misplaced, ThreadLocalRandom.current().nextLong(1L << 40, 1L << 50), movable);
+
+        rebalancer.rebalance();
+
+        assertEquals(1, rowsWithEmail(owner, conflicting));
+        assertEquals(1, rowsWithEmail(misplaced, conflicting), "left for an operator to resolve");
+        assertEquals(0, rowsWithEmail(misplaced, movable));
+        assertEquals(1, rowsWithEmail(shards.shardOf(movable), movable));
+    }
+
+    // A row on a shard that does not own it, as left behind when a shard is appended
+    private void insert(int shard, long id, String email) throws SQLException {
+        try (Connection connection = shards.forWrite(shard).getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO users (id, name, contact_number, email, password, email_hash) VALUES (?, ?, ?, ?, ?, ?)")) {
+            statement.setLong(1, id);
+            statement.setString(2, "Moved Shard");
+            statement.setString(3, contactNumber());
+            statement.setString(4, email);
+            statement.setString(5, "hash");
+            statement.setBytes(6, EmailUtil.lookupHash(email));
+            statement.executeUpdate();
+        }
+    }
+
+    private int rowsWithEmail(int shard, String email) throws SQLException {
+        try (Connection connection = shards.forWrite(shard).getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM users WHERE LOWER(email) = ?")) {
+            statement.setString(1, EmailUtil.normalize(email));
+            ResultSet resultSet = statement.executeQuery();
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private String newEmailOwnedBy(int shard) {
+        String email = newEmail();
+        while (shards.shardOf(email) != shard) {
+            email = newEmail();
+        }
+        return email;
+    }
+
+    private static String newEmail() {
+        return "shard-" + UUID.randomUUID() + "@example.com";
+    }
+
+    private static String contactNumber() {
+        return String.valueOf(ThreadLocalRandom.current().nextLong(4_000_000_000L, 5_000_000_000L));
+    }
+}
@@ -0,0 +1,70 @@
+package com.signup.database;
+
+import com.signup.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignupWriteBehindQueueTest {
+
+    private final CountDownLatch flushing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> flushed = new CopyOnWriteArrayList<>();
+
+    // Batches of one; each flush blocks until released, like a slow transaction
+    private final SignupWriteBehindQueue queue = new SignupWriteBehindQueue(10, 1, 0, batch -> {
+        flushing.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        batch.forEach(pending -> {
+            flushed.add(pending.user.getEmail());
+            pending.result.complete(pending.user);
+        });
+    });
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        queue.shutdown();
+    }
+
+    @Test
+    void withdrawnSignupIsNeverWritten() throws Exception {
+        SignupWriteBehindQueue.PendingSignup inFlight = queue.offer(user("first@example.com"));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        SignupWriteBehindQueue.PendingSignup queued = queue.offer(user("second@example.com"));
+
+        assertTrue(queue.withdraw(queued));
+        assertTrue(queued.result.isCancelled());
+        release.countDown();
+
+        assertEquals("first@example.com", inFlight.result.get(5, TimeUnit.SECONDS).getEmail());
+        queue.shutdown();
+        assertEquals(List.of("first@example.com"), flushed);
+    }
+
+    @Test
+    void signupBeingWrittenCannotBeWithdrawn() throws Exception {
+        SignupWriteBehindQueue.PendingSignup inFlight = queue.offer(user("first@example.com"));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+        assertFalse(queue.withdraw(inFlight));
+        release.countDown();
+
+        assertEquals("first@example.com", inFlight.result.get(5, TimeUnit.SECONDS).getEmail());
+        assertEquals(List.of("first@example.com"), flushed);
+    }
+
+    private static User user(String email) {
+        return new User("Queue Test", "9000000000", email, "hash");
+    }
+}
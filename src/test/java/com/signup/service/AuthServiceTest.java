@@ -0,0 +1,298 @@
+package com.signup.service;
+
+import com.signup.dto.AuthResponse;
+import com.signup.dto.LoginRequest;
+import com.signup.dto.SignupRequest;
+import com.signup.database.ReadWriteRouter;
+import com.signup.util.EmailUtil;
+import com.signup.util.JwtUtil;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AuthService against the test profile's H2 database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthServiceTest {
+
+    private static final String PASSWORD = "Test-pass1";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void duplicateContactNumberIsRefused() {
+        String contactNumber = contactNumber();
+        assertTrue(authService.signup(new SignupRequest("Auth Test", contactNumber, newEmail(), PASSWORD)));
+
+        assertFalse(authService.signup(new SignupRequest("Auth Test", contactNumber, newEmail(), PASSWORD)));
+    }
+
+    @Test
+    void contactNumberInsertedByAnotherInstanceIsRefused() throws SQLException {
+        String contactNumber = contactNumber();
+        insertBehindRegistry(contactNumber);
+
+        assertFalse(authService.signup(new SignupRequest("Auth Test", contactNumber, newEmail(), PASSWORD)));
+    }
+
+    @Test
+    void logoutRevokesAccessAndRefreshTokens() {
+        AuthResponse session = signUpAndLogIn();
+
+        authService.logout(session.getToken());
+
+        assertFalse(authService.validateToken(session.getToken()));
+        assertFalse(authService.refreshToken(session.getRefreshToken()).isSuccess());
+    }
+
+    @Test
+    void refreshRevokesTheTokensItReplaces() {
+        AuthResponse session = signUpAndLogIn();
+
+        AuthResponse refreshed = authService.refreshToken(session.getRefreshToken());
+
+        assertTrue(refreshed.isSuccess());
+        assertTrue(authService.validateToken(refreshed.getToken()));
+        assertFalse(authService.validateToken(session.getToken()));
+        assertFalse(authService.refreshToken(session.getRefreshToken()).isSuccess(), "refresh tokens are single use");
+    }
+
+    @Test
+    void revokeAllRevokesEveryCachedSession() {
+        AuthResponse first = signUpAndLogIn();
+        AuthResponse second = signUpAndLogIn();
+        assertTrue(authService.validateToken(first.getToken()));
+
+        assertTrue(authService.revokeAllSessions());
+
+        assertFalse(authService.validateToken(first.getToken()));
+        assertFalse(authService.validateToken(second.getToken()));
+        assertFalse(authService.refreshToken(second.getRefreshToken()).isSuccess());
+    }
+
+    @Test
+    void revocationByAnotherInstanceIsSynced() throws SQLException {
+        AuthResponse session = signUpAndLogIn();
+        assertTrue(authService.validateToken(session.getToken())); // Now cached here
+
+        advanceEpochBehindCache(session.getUser().getUserEmail());
+        authService.syncEpochs();
+
+        assertFalse(authService.validateToken(session.getToken()));
+        assertFalse(authService.refreshToken(session.getRefreshToken()).isSuccess());
+    }
+
+    @Test
+    void loginIssuesTheEpochStoredInTheDatabase() throws SQLException {
+        AuthResponse session = signUpAndLogIn();
+        String email = session.getUser().getUserEmail();
+        for (int i = 0; i < 3; i++) {
+            advanceEpochBehindCache(email); // Advances this instance has not seen yet
+        }
+
+        AuthResponse next = authService.login(new LoginRequest(email, PASSWORD));
+
+        assertEquals(storedEpoch(email), jwtUtil.decode(next.getToken()).getEpoch());
+        assertTrue(authService.validateToken(next.getToken()));
+        assertFalse(authService.validateToken(session.getToken()));
+    }
+
+    private AuthResponse signUpAndLogIn() {
+        String email = newEmail();
+        assertTrue(authService.signup(new SignupRequest("Auth Test", contactNumber(), email, PASSWORD)));
+        AuthResponse session = authService.login(new LoginRequest(email, PASSWORD));
+        assertTrue(session.isSuccess());
+        return session;
+    }
+
+    // A logout on another node, which advances the row but not this instance's cache
+    private void advanceEpochBehindCache(String email) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE users SET token_epoch = token_epoch + 1, epoch_changed_at = CURRENT_TIMESTAMP WHERE email = ?")) {
+            statement.setString(1, email);
+            assertEquals(1, statement.executeUpdate());
+        }
+    }
+
+    private long storedEpoch(String email) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT token_epoch FROM users WHERE email = ?")) {
+            statement.setString(1, email);
+            ResultSet resultSet = statement.executeQuery();
+            assertTrue(resultSet.next());
+            return resultSet.getLong(1);
+        }
+    }
+
+    // A row this instance never saw, as another node's signup would leave it
+    private void insertBehindRegistry(String contactNumber) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO users (id, name, contact_number, email, password) VALUES (?, ?, ?, ?, ?)")) {
+            statement.setLong(1, ThreadLocalRandom.current().nextLong(1L << 40, 1L << 50));
+            statement.setString(2, "Other Node");
+            statement.setString(3, contactNumber);
+            statement.setString(4, newEmail());
+            statement.setString(5, "hash");
+            statement.executeUpdate();
+        }
+    }
+
+    static String newEmail() {
+        return "auth-" + UUID.randomUUID() + "@example.com";
+    }
+
+    static String contactNumber() {
+        return String.valueOf(ThreadLocalRandom.current().nextLong(7_000_000_000L, 8_000_000_000L));
+    }
+
+    // The replica is the test database's STALE schema: it shares the primary's heartbeat, so it is
+    // in rotation, but its users table never receives a row
+    @Nested
+    @TestPropertySource(properties = {
+        "datasource.replica.urls=jdbc:h2:mem:signup-test;MODE=MySQL;DB_CLOSE_DELAY=-1;SCHEMA=STALE",
+        "datasource.replica.username=sa"
+    })
+    class WithLaggingReplica {
+
+        // This class runs in its own context; the enclosing authService reads from the primary only
+        @Autowired
+        private AuthService replicatedAuthService;
+
+        @Autowired
+        private ReadWriteRouter router;
+
+        @Test
+        void contactNumberMissingOnTheReplicaIsStillRefused() throws SQLException {
+            attachStaleReplica();
+            String contactNumber = contactNumber();
+            insertBehindRegistry(contactNumber);
+
+            assertFalse(replicatedAuthService.signup(new SignupRequest("Auth Test", contactNumber, newEmail(), PASSWORD)));
+        }
+
+        @Test
+        void userSignedUpThroughAnotherInstanceCanLogIn() throws SQLException {
+            attachStaleReplica();
+            String email = newEmail();
+            assertTrue(authService.signup(new SignupRequest("Auth Test", contactNumber(), email, PASSWORD)));
+            assertNotSame(router.forWrite(), router.forRead(email), "this instance holds no pin for the new row");
+
+            assertTrue(replicatedAuthService.login(new LoginRequest(email, PASSWORD)).isSuccess());
+            assertFalse(replicatedAuthService.signup(new SignupRequest("Auth Test", contactNumber(), email, PASSWORD)));
+        }
+
+        private void attachStaleReplica() throws SQLException {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("CREATE SCHEMA IF NOT EXISTS STALE");
+                statement.execute("CREATE TABLE IF NOT EXISTS STALE.users AS SELECT * FROM PUBLIC.users WHERE 1 = 0");
+                router.checkReplicas(); // Creates the heartbeat table on the primary
+                statement.execute("CREATE VIEW IF NOT EXISTS STALE.replication_heartbeat AS SELECT * FROM PUBLIC.replication_heartbeat");
+            }
+            router.checkReplicas();
+            assertNotSame(router.forWrite(), router.forRead(null), "the stale replica is in rotation");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+        "auth.epoch-sync.max-changes=100",
+        "auth.epoch-sync.interval-ms=3600000" // Only the explicit syncs below, after the one at startup
+    })
+    class WithSmallEpochSyncLimit {
+
+        // This class runs in its own context; the enclosing authService syncs with the default limit
+        @Autowired
+        private AuthService pagedAuthService;
+
+        @Test
+        void changesAboveTheLimitArePagedInWithoutDroppingTheCache() throws SQLException {
+            String run = "paged-" + UUID.randomUUID();
+            String bystander = insertUsers("bystander-" + run, 1).get(0);
+            List<String> revoked = insertUsers(run, 250);
+            String bystanderToken = jwtUtil.generateToken(bystander, null, 0);
+            assertTrue(pagedAuthService.validateToken(bystanderToken)); // Now cached
+            List<String> tokens = new ArrayList<>();
+            for (String email : revoked) {
+                tokens.add(jwtUtil.generateToken(email, null, 0));
+                assertTrue(pagedAuthService.validateToken(tokens.get(tokens.size() - 1)));
+            }
+
+            // One statement, so every row shares an epoch_changed_at and only the id orders them
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "UPDATE users SET token_epoch = token_epoch + 1, epoch_changed_at = CURRENT_TIMESTAMP WHERE email LIKE ?")) {
+                statement.setString(1, run + "-%@example.com");
+                assertEquals(250, statement.executeUpdate());
+            }
+
+            pagedAuthService.syncEpochs();
+            assertTrue(stillValid(tokens) >= 150, "one sync reads at most 100 changes");
+            int syncs = 1;
+            while (stillValid(tokens) > 0 && syncs < 10) {
+                pagedAuthService.syncEpochs();
+                syncs++;
+            }
+
+            assertEquals(0, stillValid(tokens));
+            assertTrue(syncs >= 3, "250 changes take at least three syncs, took " + syncs);
+            Map<?, ?> cachedEpochs = (Map<?, ?>) ReflectionTestUtils.getField(pagedAuthService, "userEpochStore");
+            assertTrue(cachedEpochs.containsKey(bystander), "the cache was paged into, not dropped");
+        }
+
+        private int stillValid(List<String> tokens) {
+            return (int) tokens.stream().filter(pagedAuthService::validateToken).count();
+        }
+
+        // Users inserted directly, which is quicker than signing up hundreds of them
+        private List<String> insertUsers(String prefix, int count) throws SQLException {
+            List<String> emails = new ArrayList<>();
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "INSERT INTO users (id, name, contact_number, email, password, email_hash) VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < count; i++) {
+                    String email = prefix + "-" + i + "@example.com";
+                    statement.setLong(1, ThreadLocalRandom.current().nextLong(1L << 40, 1L << 50));
+                    statement.setString(2, "Paged Sync");
+                    statement.setString(3, contactNumber());
+                    statement.setString(4, email);
+                    statement.setString(5, "hash");
+                    statement.setBytes(6, EmailUtil.lookupHash(email));
+                    statement.addBatch();
+                    emails.add(email);
+                }
+                statement.executeBatch();
+            }
+            return emails;
+        }
+    }
+}
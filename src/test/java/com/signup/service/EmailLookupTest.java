@@ -0,0 +1,78 @@
+package com.signup.service;
+
+import com.signup.database.DatabaseService;
+import com.signup.dto.AuthResponse;
+import com.signup.dto.LoginRequest;
+import com.signup.dto.SignupRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Normalized emails and the hash lookup, against the test profile's H2 database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EmailLookupTest {
+
+    private static final String PASSWORD = "Test-pass1";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void emailsDifferingOnlyInCaseAreOneAccount() {
+        String email = newEmail();
+        assertTrue(authService.signup(new SignupRequest("Email Test", contactNumber(), " " + email.toUpperCase() + " ", PASSWORD)));
+
+        assertFalse(authService.signup(new SignupRequest("Email Test", contactNumber(), email, PASSWORD)));
+        AuthResponse session = authService.login(new LoginRequest(email.toUpperCase(), PASSWORD));
+        assertTrue(session.isSuccess());
+        assertEquals(email, session.getUser().getUserEmail());
+    }
+
+    @Test
+    void rowsFromBeforeTheHashColumnAreBackfilled() throws SQLException {
+        String email = newEmail().replace("email-", "Legacy-");
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO users (id, name, contact_number, email, password) VALUES (?, ?, ?, ?, ?)")) {
+            statement.setLong(1, ThreadLocalRandom.current().nextLong(1L << 40, 1L << 50));
+            statement.setString(2, "Legacy Row");
+            statement.setString(3, contactNumber());
+            statement.setString(4, email); // Mixed case and no email_hash, as stored before normalization
+            statement.setString(5, "hash");
+            statement.executeUpdate();
+        }
+        assertFalse(databaseService.emailExists(email.toLowerCase()), "not reachable through the hash index yet");
+
+        databaseService.initializeDatabase();
+
+        assertTrue(databaseService.emailExists(email.toLowerCase()));
+        assertTrue(databaseService.emailExists(email));
+    }
+
+    private static String newEmail() {
+        return "email-" + UUID.randomUUID() + "@example.com";
+    }
+
+    private static String contactNumber() {
+        return String.valueOf(ThreadLocalRandom.current().nextLong(3_000_000_000L, 4_000_000_000L));
+    }
+}
@@ -0,0 +1,100 @@
+package com.signup.service;
+
+import com.signup.dto.AuthResponse;
+import com.signup.dto.IntrospectResponse.TokenStatus;
+import com.signup.dto.LoginRequest;
+import com.signup.dto.SignupRequest;
+import com.signup.util.JwtUtil;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch introspection, against the test profile's H2 database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IntrospectionTest {
+
+    private static final String PASSWORD = "Test-pass1";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void introspectionReportsEachTokenInRequestOrder() {
+        AuthResponse active = signUpAndLogIn(authService);
+        AuthResponse loggedOut = signUpAndLogIn(authService);
+        authService.logout(loggedOut.getToken());
+        List<String> tokens = new ArrayList<>(Arrays.asList(
+                active.getToken(), loggedOut.getToken(), active.getRefreshToken(), "a.b.c", "", null));
+        for (int i = 0; i < 40; i++) {
+            tokens.add(active.getToken());
+        }
+
+        assertIntrospected(tokens, authService.introspect(tokens), active.getUser().getUserEmail(),
+                jwtUtil.decode(active.getToken()).getExpiration());
+    }
+
+    // Active: the first token and everything from the seventh on; inactive in between
+    private static void assertIntrospected(List<String> tokens, List<TokenStatus> results, String email, long exp) {
+        assertEquals(tokens.size(), results.size());
+        assertTrue(results.get(0).isActive());
+        assertEquals(email, results.get(0).getSubject());
+        assertEquals(exp, results.get(0).getExp());
+        for (int i = 1; i <= 5; i++) {
+            TokenStatus inactive = results.get(i);
+            assertFalse(inactive.isActive(), "token " + i);
+            assertNull(inactive.getSubject(), "inactive tokens reveal nothing");
+            assertNull(inactive.getExp());
+        }
+        for (int i = 6; i < results.size(); i++) {
+            assertTrue(results.get(i).isActive(), "token " + i);
+        }
+    }
+
+    private static AuthResponse signUpAndLogIn(AuthService authService) {
+        String email = "introspect-" + UUID.randomUUID() + "@example.com";
+        String contactNumber = String.valueOf(ThreadLocalRandom.current().nextLong(5_000_000_000L, 6_000_000_000L));
+        assertTrue(authService.signup(new SignupRequest("Introspection Test", contactNumber, email, PASSWORD)));
+        AuthResponse session = authService.login(new LoginRequest(email, PASSWORD));
+        assertTrue(session.isSuccess());
+        return session;
+    }
+
+    @Nested
+    @TestPropertySource(properties = "auth.introspection.threads=3")
+    class WithIntrospectionThreads {
+
+        // This class runs in its own context; the enclosing authService belongs to the default one
+        @Autowired
+        private AuthService threadedAuthService;
+
+        @Test
+        void splitBatchKeepsRequestOrder() {
+            AuthResponse active = signUpAndLogIn(threadedAuthService);
+            List<String> tokens = new ArrayList<>(Arrays.asList(
+                    active.getToken(), "not-a-token", active.getRefreshToken(), "a.b.c", "", null));
+            for (int i = 0; i < 40; i++) {
+                tokens.add(active.getToken()); // Four shares of eight or more tokens
+            }
+
+            assertIntrospected(tokens, threadedAuthService.introspect(tokens), active.getUser().getUserEmail(),
+                    jwtUtil.decode(active.getToken()).getExpiration());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.signup.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.signup.database.DatabaseService;
+import com.signup.dto.SignupRequest;
+import com.signup.exception.DatabaseUnavailableException;
+import com.signup.util.JwtUtil;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * JIT warm-up against the running test server, and its budget and failure handling with the services stubbed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DisabledInNativeImage // Mockito needs runtime class generation the native build doesn't have
+class JitWarmUpTest {
+
+    @Autowired
+    private JitWarmUp jitWarmUp;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void warmUpLeavesUserDataUntouched() throws SQLException {
+        String contactNumber = String.valueOf(ThreadLocalRandom.current().nextLong(4_000_000_000L, 5_000_000_000L));
+        assertTrue(authService.signup(new SignupRequest("Warm Up Test", contactNumber,
+                "warmup-" + UUID.randomUUID() + "@example.com", "Test-pass1")));
+        List<String> before = users();
+
+        jitWarmUp.run(); // Including the loopback requests, as the server is listening
+
+        assertEquals(before, users());
+        assertFalse(before.isEmpty());
+    }
+
+    @Test
+    void roundsStopAtTheIterationBudget() {
+        DatabaseService databaseService = mock(DatabaseService.class);
+
+        stubbed(databaseService, 4, 60_000).run();
+
+        verify(databaseService, times(4)).warmUp(anyString());
+    }
+
+    @Test
+    void databaseAndHttpRoundsStopAtTheirOwnBudget() {
+        DatabaseService databaseService = mock(DatabaseService.class);
+        JitWarmUp warmUp = stubbed(databaseService, 10, 60_000);
+        ReflectionTestUtils.setField(warmUp, "ioIterations", 3);
+
+        warmUp.run();
+
+        verify(databaseService, times(3)).warmUp(anyString());
+    }
+
+    @Test
+    void databaseRoundsWaitForTheSchema() {
+        DatabaseService databaseService = mock(DatabaseService.class);
+        JitWarmUp warmUp = stubbed(databaseService, 6, 60_000);
+        when(databaseService.isSchemaReady()).thenReturn(false, false, false, false, true); // Ready from the fifth round
+
+        warmUp.run();
+
+        verify(databaseService, times(2)).warmUp(anyString());
+    }
+
+    @Test
+    void roundsStopAtTheTimeBudget() {
+        DatabaseService databaseService = mock(DatabaseService.class);
+
+        stubbed(databaseService, Integer.MAX_VALUE, 0).run();
+
+        verify(databaseService, never()).warmUp(anyString());
+    }
+
+    @Test
+    void failureEndsWarmUpWithoutFailingStartup() {
+        DatabaseService databaseService = mock(DatabaseService.class);
+        doThrow(new DatabaseUnavailableException("warming up", DatabaseUnavailableException.Reason.TIMEOUT, null))
+                .when(databaseService).warmUp(anyString());
+
+        assertDoesNotThrow(stubbed(databaseService, 10, 60_000)::run);
+        verify(databaseService, times(1)).warmUp(anyString());
+    }
+
+    // A warm-up with no server to call and everything but JSON binding stubbed
+    private static JitWarmUp stubbed(DatabaseService databaseService, int iterations, long maxDurationMillis) {
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.generateToken(anyString(), any(), anyLong())).thenReturn("a.b.c");
+        when(jwtUtil.generateRefreshToken(anyString(), any(), anyLong())).thenReturn("d.e.f");
+        JitWarmUp warmUp = new JitWarmUp();
+        ReflectionTestUtils.setField(warmUp, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(warmUp, "authService", mock(AuthService.class));
+        ReflectionTestUtils.setField(warmUp, "databaseService", databaseService);
+        ReflectionTestUtils.setField(warmUp, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(warmUp, "validator", mock(Validator.class));
+        ReflectionTestUtils.setField(warmUp, "environment", mock(Environment.class));
+        ReflectionTestUtils.setField(warmUp, "enabled", true);
+        ReflectionTestUtils.setField(warmUp, "iterations", iterations);
+        ReflectionTestUtils.setField(warmUp, "ioIterations", iterations);
+        ReflectionTestUtils.setField(warmUp, "maxDurationMillis", maxDurationMillis);
+        when(databaseService.isSchemaReady()).thenReturn(true);
+        return warmUp;
+    }
+
+    // Every stored column of every user, in id order
+    private List<String> users() throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM users ORDER BY id")) {
+            int columns = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(resultSet.getString(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+}
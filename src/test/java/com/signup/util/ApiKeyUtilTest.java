@@ -0,0 +1,23 @@
+package com.signup.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiKeyUtilTest {
+
+    @Test
+    void onlyTheConfiguredKeyMatches() {
+        assertTrue(ApiKeyUtil.matches("s3cret-key", "s3cret-key"));
+        assertFalse(ApiKeyUtil.matches("s3cret-key", "s3cret-kez"));
+        assertFalse(ApiKeyUtil.matches("s3cret-key", "s3cret-key-longer"));
+        assertFalse(ApiKeyUtil.matches("s3cret-key", null));
+    }
+
+    @Test
+    void unsetKeyMatchesNothing() {
+        assertFalse(ApiKeyUtil.matches("", ""));
+        assertFalse(ApiKeyUtil.matches(" ", " "));
+        assertFalse(ApiKeyUtil.matches(null, "anything"));
+    }
+}
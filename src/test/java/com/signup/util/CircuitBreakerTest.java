@@ -0,0 +1,61 @@
+package com.signup.util;
+
+import com.signup.util.CircuitBreaker.Permit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 2, 0);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        breaker.onFailure(breaker.tryAcquire());
+        assertFalse(breaker.isOpen());
+        breaker.onFailure(breaker.tryAcquire());
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    void onlyOneTrialWhileHalfOpen() {
+        Permit straggler = breaker.tryAcquire();
+        open();
+
+        Permit trial = breaker.tryAcquire();
+        assertEquals(Permit.TRIAL, trial);
+        assertEquals(Permit.REFUSED, breaker.tryAcquire());
+
+        // A call admitted before the breaker opened fails late: the trial keeps its slot
+        breaker.onFailure(straggler);
+        assertEquals(Permit.REFUSED, breaker.tryAcquire());
+
+        breaker.onSuccess(trial);
+        assertFalse(breaker.isOpen());
+        assertEquals(Permit.CALL, breaker.tryAcquire());
+    }
+
+    @Test
+    void lateSuccessOfOrdinaryCallDoesNotClose() {
+        Permit straggler = breaker.tryAcquire();
+        open();
+
+        breaker.onSuccess(straggler);
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    void failedTrialReopens() {
+        open();
+        breaker.onFailure(breaker.tryAcquire());
+
+        assertTrue(breaker.isOpen());
+        assertEquals(Permit.TRIAL, breaker.tryAcquire());
+    }
+
+    private void open() {
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+        assertTrue(breaker.isOpen());
+    }
+}
@@ -0,0 +1,109 @@
+package com.signup.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void requestsOverTheLimitAreRejectedAtOnce() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2, 1, 10, 1.5);
+        long start = System.nanoTime();
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.rejected());
+
+        limiter.release(start);
+        assertTrue(limiter.tryAcquire(), "a release frees a slot");
+        assertEquals(2, limiter.inFlight());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRisesAndRecoversWhenItFalls() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 20, 2, 20, 1.5);
+        window(limiter, 1);
+        assertEquals(20, limiter.limit());
+
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 20); // Queueing: twenty times the baseline
+        }
+        int shrunk = limiter.limit();
+        assertTrue(shrunk < 16, "limit should shrink under rising latency, was " + shrunk);
+        assertEquals(20 * MILLIS, limiter.shortLatencyNanos(), MILLIS);
+
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 1);
+        }
+        assertTrue(limiter.limit() > shrunk, "limit should grow back once latency falls");
+    }
+
+    @Test
+    void limitShrinksByAtMostHalfPerWindow() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 16, 1, 16, 1.5);
+        window(limiter, 1);
+
+        window(limiter, 1_000);
+
+        assertTrue(limiter.limit() >= 8, "limit was " + limiter.limit());
+    }
+
+    @Test
+    void limitStaysWithinItsBounds() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 6, 5, 8, 1.5);
+        window(limiter, 1);
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 100);
+        }
+        assertEquals(5, limiter.limit());
+
+        for (int i = 0; i < 20; i++) {
+            window(limiter, 1);
+        }
+        assertEquals(8, limiter.limit());
+    }
+
+    @Test
+    void latencyBelowTheLimitDoesNotMoveIt() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 20, 2, 20, 1.5);
+        window(limiter, 1);
+
+        // Slow requests one at a time: the limit was never what held them up
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(limiter.tryAcquire());
+                if (i == 4) {
+                    Thread.sleep(110);
+                }
+                limiter.release(System.nanoTime() - 50 * MILLIS);
+            }
+        }
+
+        assertEquals(20, limiter.limit());
+    }
+
+    @Test
+    void invalidLimitsAreRefused() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter("test", 1, 0, 10, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter("test", 1, 5, 4, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter("test", 1, 1, 4, 0.9));
+    }
+
+    // One window at full concurrency, every request taking the given latency;
+    // the last release closes the window so none of it carries into the next
+    private static void window(ConcurrencyLimiter limiter, long latencyMillis) throws InterruptedException {
+        int requests = limiter.limit();
+        for (int i = 0; i < requests; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < requests - 1; i++) {
+            limiter.release(System.nanoTime() - latencyMillis * MILLIS);
+        }
+        Thread.sleep(110);
+        limiter.release(System.nanoTime() - latencyMillis * MILLIS);
+    }
+}
@@ -0,0 +1,76 @@
+package com.signup.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EcKeySetTest {
+
+    @Test
+    void configuredPairSignsAndIsPublished() throws GeneralSecurityException {
+        KeyPair pair = newPair();
+        EcKeySet keySet = keySet(encode(pair.getPrivate().getEncoded()), encode(pair.getPublic().getEncoded()));
+
+        keySet.init();
+
+        assertEquals(pair.getPrivate(), keySet.signingKey());
+        assertEquals(pair.getPublic(), keySet.verificationKey(keySet.signingKid()));
+    }
+
+    @Test
+    void privateKeyWithoutPublicKeyFailsStartup() throws GeneralSecurityException {
+        EcKeySet keySet = keySet(encode(newPair().getPrivate().getEncoded()), "");
+
+        assertThrows(IllegalStateException.class, keySet::init);
+    }
+
+    @Test
+    void publicKeyWithoutPrivateKeyFailsStartup() throws GeneralSecurityException {
+        EcKeySet keySet = keySet("", encode(newPair().getPublic().getEncoded()));
+
+        assertThrows(IllegalStateException.class, keySet::init);
+    }
+
+    @Test
+    void mismatchedKeysFailStartup() throws GeneralSecurityException {
+        EcKeySet keySet = keySet(encode(newPair().getPrivate().getEncoded()), encode(newPair().getPublic().getEncoded()));
+
+        assertThrows(IllegalStateException.class, keySet::init);
+    }
+
+    @Test
+    void noKeysFallsBackToGeneratedPair() throws GeneralSecurityException {
+        EcKeySet keySet = keySet("", "");
+
+        keySet.init();
+
+        assertNotNull(keySet.signingKey());
+        assertNotNull(keySet.verificationKey(keySet.signingKid()));
+    }
+
+    private static EcKeySet keySet(String privateKey, String publicKey) {
+        EcKeySet keySet = new EcKeySet();
+        ReflectionTestUtils.setField(keySet, "signingAlgorithm", "ES256");
+        ReflectionTestUtils.setField(keySet, "privateKeyValue", privateKey);
+        ReflectionTestUtils.setField(keySet, "publicKeyValue", publicKey);
+        ReflectionTestUtils.setField(keySet, "previousPublicKeyValues", "");
+        return keySet;
+    }
+
+    private static KeyPair newPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,38 @@
+package com.signup.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailUtilTest {
+
+    @Test
+    void normalizeTrimsAndLowerCases() {
+        assertEquals("foo@x.com", EmailUtil.normalize("  Foo@X.COM "));
+        assertNull(EmailUtil.normalize(null));
+    }
+
+    @Test
+    void normalizeIgnoresTheDefaultLocale() {
+        // Turkish lower-cases I to a dotless i
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertEquals("ivy@x.com", EmailUtil.normalize("IVY@X.COM"));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void lookupHashIsFixedWidthAndCaseInsensitive() {
+        byte[] hash = EmailUtil.lookupHash("Foo@X.com");
+
+        assertEquals(EmailUtil.HASH_LENGTH, hash.length);
+        assertArrayEquals(hash, EmailUtil.lookupHash(" foo@x.com"));
+        assertFalse(Arrays.equals(hash, EmailUtil.lookupHash("foo@x.co")));
+    }
+}
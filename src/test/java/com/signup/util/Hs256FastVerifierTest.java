@@ -0,0 +1,201 @@
+package com.signup.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Date;
+import java.util.Random;
+
+import static com.signup.util.TestTokens.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class Hs256FastVerifierTest {
+
+    private static final String PAYLOAD = "{\"sub\":\"user@example.com\",\"exp\":%d,\"ep\":4}";
+
+    private SigningKeyRing keyRing;
+    private JwtParser parser;
+    private Hs256FastVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws GeneralSecurityException {
+        keyRing = keyRing("HS256");
+        parser = parser(keyRing);
+        verifier = new Hs256FastVerifier(keyRing);
+    }
+
+    @Test
+    void issuedTokenIsVerified() {
+        String token = keyRing.newSignedBuilder()
+                .setSubject("user@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .claim(JwtUtil.EPOCH_CLAIM, 4)
+                .claim("type", "refresh")
+                .claim("duration", "long")
+                .compact();
+
+        TokenClaims claims = verifier.verify(token);
+
+        assertEquals("user@example.com", claims.getSubject());
+        assertEquals(4, claims.getEpoch());
+        assertTrue(claims.isRefresh());
+        assertTrue(claims.isLongLived());
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        String token = keyRing.newSignedBuilder().setSubject("user@example.com").compact();
+
+        assertNull(verifier.verify(tamperSignature(token)));
+    }
+
+    @Test
+    void tamperedPayloadIsRejected() throws GeneralSecurityException {
+        String token = sign(header(currentKid()), PAYLOAD.formatted(secondsFromNow(60)), "HmacSHA256", key(currentKid()));
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + encode(PAYLOAD.replace("\"ep\":4", "\"ep\":5").formatted(secondsFromNow(60))) + "." + parts[2];
+
+        assertNull(verifier.verify(forged));
+    }
+
+    @Test
+    void otherAlgorithmIsLeftToTheGeneralDecoder() throws GeneralSecurityException {
+        String header = "{\"kid\":\"" + currentKid() + "\",\"alg\":\"HS512\"}";
+
+        assertSame(Hs256FastVerifier.UNHANDLED,
+                verifier.verify(sign(header, PAYLOAD.formatted(secondsFromNow(60)), "HmacSHA512", key(currentKid()))));
+    }
+
+    @Test
+    void nonNumericKidIsLeftToTheGeneralDecoder() throws GeneralSecurityException {
+        String header = "{\"kid\":\"ec-key\",\"alg\":\"HS256\"}";
+
+        assertSame(Hs256FastVerifier.UNHANDLED,
+                verifier.verify(sign(header, PAYLOAD.formatted(secondsFromNow(60)), "HmacSHA256", key(currentKid()))));
+    }
+
+    @Test
+    void unknownKidIsRejected() throws GeneralSecurityException {
+        String unknown = Long.toString(Long.parseLong(currentKid()) + 100);
+
+        assertNull(verifier.verify(sign(header(unknown), PAYLOAD.formatted(secondsFromNow(60)), "HmacSHA256", key(currentKid()))));
+    }
+
+    @Test
+    void tokenSignedWithAnotherGenerationIsRejected() throws GeneralSecurityException {
+        String previous = Long.toString(Long.parseLong(currentKid()) - 1);
+
+        assertNull(verifier.verify(sign(header(currentKid()), PAYLOAD.formatted(secondsFromNow(60)), "HmacSHA256", key(previous))));
+    }
+
+    @Test
+    void expiredTokenIsRejected() throws GeneralSecurityException {
+        assertNull(verifier.verify(sign(header(currentKid()), PAYLOAD.formatted(secondsFromNow(-1)), "HmacSHA256", key(currentKid()))));
+    }
+
+    @Test
+    void legacyTokenIsVerifiedWithSecretsOfAnyLength() throws GeneralSecurityException {
+        for (String secret : new String[] {SECRET, SECRET + SECRET}) { // Under and over the 64-byte HMAC block
+            ReflectionTestUtils.setField(keyRing, "secret", secret);
+            keyRing.init();
+            Hs256FastVerifier legacyVerifier = new Hs256FastVerifier(keyRing);
+            String token = sign("{\"alg\":\"HS256\"}", PAYLOAD.formatted(secondsFromNow(60)), "HmacSHA256", keyRing.hmacKey(-1L));
+
+            assertEquals("user@example.com", legacyVerifier.verify(token).getSubject(), secret.length() + "-byte secret");
+            assertNull(legacyVerifier.verify(tamperSignature(token)));
+        }
+    }
+
+    @Test
+    void signatureOfAnyOtherLengthIsLeftToTheGeneralDecoder() throws GeneralSecurityException {
+        String token = sign(header(currentKid()), PAYLOAD.formatted(secondsFromNow(60)), "HmacSHA256", key(currentKid()));
+
+        assertSame(Hs256FastVerifier.UNHANDLED, verifier.verify(token.substring(0, token.length() - 1)));
+        assertSame(Hs256FastVerifier.UNHANDLED, verifier.verify(token + "A"));
+        assertSame(Hs256FastVerifier.UNHANDLED, verifier.verify(token + "AAAA"));
+        assertSame(Hs256FastVerifier.UNHANDLED, verifier.verify(token.substring(0, token.lastIndexOf('.') + 1)));
+    }
+
+    @Test
+    void agreesWithJjwtOnRandomTokens() {
+        Random random = new Random(20240601);
+        int handled = 0;
+        for (int i = 0; i < 2_000; i++) {
+            String token = randomToken(random);
+            if (random.nextInt(3) == 0) {
+                token = mutate(token, random);
+            }
+
+            TokenClaims fast = verifier.verify(token);
+            if (fast == Hs256FastVerifier.UNHANDLED) {
+                continue;
+            }
+            handled++;
+            Claims expected = parseWithJjwt(token);
+            if (expected == null) {
+                assertNull(fast, token);
+                continue;
+            }
+            assertNotNull(fast, token);
+            assertEquals(expected.getSubject(), fast.getSubject(), token);
+            assertEquals(expected.getExpiration().getTime() / 1000, fast.getExpiration(), token);
+            Number epoch = expected.get(JwtUtil.EPOCH_CLAIM, Number.class);
+            assertEquals(epoch != null ? epoch.longValue() : -1L, fast.getEpoch(), token);
+            Object type = expected.containsKey("t") ? expected.get("t") : expected.get("type");
+            assertEquals("r".equals(type) || "refresh".equals(type), fast.isRefresh(), token);
+        }
+        assertTrue(handled > 1_000, "most random tokens should take the fast path, took " + handled);
+    }
+
+    private Claims parseWithJjwt(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Issued-shape token with random claims; some expired, some from an unknown generation
+    private String randomToken(Random random) {
+        long generation = Long.parseLong(currentKid());
+        JwtBuilder builder = keyRing.newSignedBuilder()
+                .setSubject(random.nextBoolean() ? "user" + random.nextInt(1_000_000) + "@example.com"
+                        : Long.toString(random.nextLong() & Long.MAX_VALUE))
+                .setExpiration(new Date(System.currentTimeMillis() + (random.nextInt(10) == 0 ? -60_000 : 600_000)))
+                .claim(JwtUtil.EPOCH_CLAIM, random.nextInt(1_000));
+        if (random.nextBoolean()) {
+            builder.claim(random.nextBoolean() ? "type" : "t", random.nextBoolean() ? "refresh" : "r");
+        }
+        if (random.nextInt(10) == 0) {
+            builder.setHeaderParam("kid", Long.toString(generation + 50)); // Signed with the current key regardless
+        }
+        return builder.compact();
+    }
+
+    // Change one character anywhere, keeping it in the base64url alphabet
+    private static String mutate(String token, Random random) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        int at = random.nextInt(token.length());
+        if (token.charAt(at) == '.') {
+            return token;
+        }
+        char replacement = alphabet.charAt(random.nextInt(alphabet.length()));
+        return token.substring(0, at) + replacement + token.substring(at + 1);
+    }
+
+    private static String header(String kid) {
+        return "{\"kid\":\"" + kid + "\",\"alg\":\"HS256\"}";
+    }
+
+    private Key key(String kid) {
+        return keyRing.hmacKey(Long.parseLong(kid));
+    }
+}
@@ -0,0 +1,90 @@
+package com.signup.util;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of SnowflakeIdGenerator.nextId under contention: 1, 2, 4 and 8
+ * threads (and twice the core count, if more) share one generator, as
+ * concurrent signups do. Not a test; run it from a build with the test
+ * classes compiled:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) com.signup.util.IdGenerationBenchmark
+ * </pre>
+ *
+ * Each thread checks that the ids it sees strictly increase. Threads beyond
+ * the core count only time-slice, so compare runs on the same machine only.
+ */
+public final class IdGenerationBenchmark {
+
+    private static final long WARM_UP_MILLIS = 2_000;
+    private static final long MEASURED_MILLIS = 3_000;
+
+    private IdGenerationBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        ReflectionTestUtils.setField(generator, "nodeId", 1L);
+        // Past the sequence the generator runs ahead of the clock by design; don't log it here
+        ReflectionTestUtils.setField(generator, "maxClockDriftMillis", Long.MAX_VALUE);
+        generator.init();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d core(s)%n", cores);
+        run(generator, 1, WARM_UP_MILLIS); // Warm-up, not reported
+        List<Integer> threadCounts = new ArrayList<>(List.of(1, 2, 4, 8));
+        if (cores * 2 > 8) {
+            threadCounts.add(cores * 2);
+        }
+        for (int threads : threadCounts) {
+            long ids = run(generator, threads, MEASURED_MILLIS);
+            double perSecond = ids * 1000.0 / MEASURED_MILLIS;
+            System.out.printf("%2d thread(s) %8.2f M ids/s %8.1f ns/id per thread%n",
+                    threads, perSecond / 1e6, threads * 1e9 / perSecond);
+        }
+    }
+
+    // Ids handed out by all threads together in the given time
+    private static long run(SnowflakeIdGenerator generator, int threads, long millis) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> counts = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                counts.add(executor.submit(() -> {
+                    start.await();
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+                    long count = 0;
+                    long previous = generator.nextId();
+                    while ((count & 1023) != 0 || System.nanoTime() < deadline) {
+                        long id = generator.nextId();
+                        if (id <= previous) {
+                            throw new IllegalStateException("id " + id + " after " + previous);
+                        }
+                        previous = id;
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            start.countDown();
+            long total = 0;
+            for (Future<Long> count : counts) {
+                total += count.get();
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
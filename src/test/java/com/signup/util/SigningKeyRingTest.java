@@ -0,0 +1,100 @@
+package com.signup.util;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Date;
+
+import static com.signup.util.TestTokens.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SigningKeyRingTest {
+
+    @Test
+    void retiredGenerationsVerifyUntilRetentionEnds() throws GeneralSecurityException {
+        SigningKeyRing keyRing = keyRing("HS256"); // Retains three periods
+        long current = Long.parseLong(currentKid());
+
+        for (long generation = current - 3; generation <= current + 1; generation++) {
+            assertNotNull(keyRing.hmacKey(generation), "generation " + generation);
+        }
+        assertNull(keyRing.hmacKey(current - 4), "past retention");
+        assertNull(keyRing.hmacKey(current + 2), "only the next generation is precomputed");
+    }
+
+    @Test
+    void generationsHaveDistinctKeysThatEveryInstanceDerives() throws GeneralSecurityException {
+        SigningKeyRing one = keyRing("HS256");
+        SigningKeyRing other = keyRing("HS256");
+        long current = Long.parseLong(currentKid());
+
+        assertArrayEquals(one.hmacKey(current).getEncoded(), other.hmacKey(current).getEncoded());
+        assertFalse(Arrays.equals(one.hmacKey(current).getEncoded(), one.hmacKey(current - 1).getEncoded()));
+    }
+
+    @Test
+    void tokenSignedByARetiredGenerationStillDecodes() throws GeneralSecurityException {
+        SigningKeyRing keyRing = keyRing("HS256");
+        String previous = Long.toString(Long.parseLong(currentKid()) - 1);
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, previous)
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyRing.hmacKey(Long.parseLong(previous)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals("user@example.com", new TokenDecoder(keyRing, parser(keyRing)).decode(token).getSubject());
+    }
+
+    @Test
+    void newTokensCarryTheCurrentKid() throws GeneralSecurityException {
+        SigningKeyRing keyRing = keyRing("HS256");
+
+        String token = keyRing.newSignedBuilder().setSubject("user@example.com").compact();
+
+        assertEquals(currentKid(), parser(keyRing).parseClaimsJws(token).getHeader().getKeyId());
+    }
+
+    @Test
+    void legacyTokensVerifyOnlyWhileAccepted() throws GeneralSecurityException {
+        SigningKeyRing keyRing = keyRing("HS256");
+        String legacy = Jwts.builder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        assertNotNull(new TokenDecoder(keyRing, parser(keyRing)).decode(legacy));
+
+        ReflectionTestUtils.setField(keyRing, "acceptLegacyTokens", false);
+
+        assertNull(new TokenDecoder(keyRing, parser(keyRing)).decode(legacy));
+    }
+
+    @Test
+    void developmentSecretFailsStartupUnlessAllowed() throws GeneralSecurityException {
+        SigningKeyRing keyRing = keyRing("HS256");
+        ReflectionTestUtils.setField(keyRing, "secret",
+                "x1tUyzDEpLB7dmD2ueaBg4fxLFdQ5MAqq/tyylzxpq+y37M2o6aEWWJwGQahlHScbQJx/6HUqQuziJNeLICzxw==");
+
+        assertThrows(IllegalStateException.class, keyRing::init);
+
+        ReflectionTestUtils.setField(keyRing, "allowDevelopmentSecret", true);
+        keyRing.init();
+    }
+
+    @Test
+    void blankSecretFailsStartup() throws GeneralSecurityException {
+        SigningKeyRing keyRing = keyRing("HS256");
+        ReflectionTestUtils.setField(keyRing, "secret", " ");
+        ReflectionTestUtils.setField(keyRing, "allowDevelopmentSecret", true);
+
+        assertThrows(IllegalStateException.class, keyRing::init);
+    }
+}
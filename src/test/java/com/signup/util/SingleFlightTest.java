@@ -0,0 +1,176 @@
+package com.signup.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Thread> callers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneQuery() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<String> query = () -> {
+            runs.incrementAndGet();
+            await(release);
+            return "row";
+        };
+
+        Future<String> leader = call(flight, "user@example.com", query);
+        awaitWaiting(1);
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            followers.add(call(flight, "user@example.com", query));
+        }
+        awaitWaiting(5);
+        release.countDown();
+
+        assertEquals("row", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("row", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, runs.get());
+        assertEquals(1, flight.executed());
+        assertEquals(4, flight.shared());
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        SingleFlight<String, String> flight = new SingleFlight<>(10_000);
+
+        // Were the keys shared, the inner call would wait on the outer one
+        assertEquals("b", flight.get("a", () -> flight.get("b", () -> "b")));
+        assertEquals(2, flight.executed());
+        assertEquals(0, flight.shared());
+    }
+
+    @Test
+    void failureReachesEveryWaiterAndReleasesTheKey() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> failing = () -> {
+            await(release);
+            throw new IllegalStateException("database down");
+        };
+
+        Future<String> leader = call(flight, "key", failing);
+        awaitWaiting(1);
+        Future<String> follower = call(flight, "key", () -> fail("the follower should share the leader's query"));
+        awaitWaiting(2);
+        release.countDown();
+
+        for (Future<String> caller : List.of(leader, follower)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> caller.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertEquals("database down", e.getCause().getMessage());
+        }
+        assertEquals("retried", flight.get("key", () -> "retried"), "a failed query is not cached");
+    }
+
+    @Test
+    void callAfterTheQueryFinishedRunsANewOne() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(10_000);
+        AtomicInteger runs = new AtomicInteger();
+
+        flight.get("key", runs::incrementAndGet);
+
+        assertEquals(2, flight.get("key", runs::incrementAndGet));
+        assertEquals(0, flight.shared());
+    }
+
+    @Test
+    void waiterPastTheTimeoutRunsTheQueryItself() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(50);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stuck = call(flight, "key", () -> {
+            await(release);
+            return "late";
+        });
+        awaitWaiting(1);
+
+        assertEquals("own", flight.get("key", () -> "own"));
+        assertEquals(1, flight.timedOut());
+        assertEquals(2, flight.executed());
+
+        release.countDown();
+        assertEquals("late", stuck.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void forgottenQueryIsNotShared() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stale = call(flight, "key", () -> {
+            await(release);
+            return "before the write";
+        });
+        awaitWaiting(1);
+
+        flight.forget("key"); // The row changed while the query ran
+
+        assertEquals("after the write", flight.get("key", () -> "after the write"));
+        release.countDown();
+        assertEquals("before the write", stale.get(5, TimeUnit.SECONDS));
+        assertEquals("fresh", flight.get("key", () -> "fresh"), "the stale leader must not remove its successor");
+    }
+
+    private <V> Future<V> call(SingleFlight<String, V> flight, String key, Supplier<V> query) {
+        return executor.submit(() -> {
+            synchronized (callers) {
+                callers.add(Thread.currentThread());
+            }
+            try {
+                return flight.get(key, query);
+            } finally {
+                synchronized (callers) {
+                    callers.remove(Thread.currentThread()); // Idle pool threads wait too
+                }
+            }
+        });
+    }
+
+    // Until that many callers are blocked, in the query or waiting on another caller's
+    private void awaitWaiting(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            synchronized (callers) {
+                if (callers.stream().filter(thread -> thread.getState() == Thread.State.WAITING
+                        || thread.getState() == Thread.State.TIMED_WAITING).count() >= count) {
+                    return;
+                }
+            }
+            Thread.sleep(5);
+        }
+        fail(count + " callers never blocked");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.signup.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH = 1704067200000L;
+
+    @Test
+    void idsIncreaseEvenPastTheSequenceOfOneMillisecond() {
+        SnowflakeIdGenerator generator = generator(0);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 20_000; i++) { // Well past 4096 per millisecond on any machine
+            long id = generator.nextId();
+            assertTrue(id > previous, "id " + id + " after " + previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = generator(0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<long[]>> batches = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                batches.add(executor.submit(() -> {
+                    long[] ids = new long[10_000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> seen = new HashSet<>();
+            for (Future<long[]> batch : batches) {
+                for (long id : batch.get()) {
+                    assertTrue(seen.add(id), "duplicate id " + id);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void idCarriesTheNodeAndTheTime() {
+        long before = System.currentTimeMillis();
+        long id = generator(717).nextId();
+
+        assertEquals(717, id >>> 12 & 1023);
+        long millis = (id >>> 22) + EPOCH;
+        assertTrue(millis >= before && millis <= System.currentTimeMillis() + 1, "timestamp " + millis);
+    }
+
+    @Test
+    void advancePastSkipsTheMillisecondOfTheGivenId() {
+        SnowflakeIdGenerator generator = generator(1);
+        // An id stored by an instance whose clock ran a minute ahead of this one
+        long stored = generator(2).nextId() + (60_000L << 22);
+
+        generator.advancePast(stored);
+
+        long id = generator.nextId();
+        assertTrue(id > stored);
+        assertTrue(id >>> 22 > stored >>> 22, "no id from the stored id's millisecond");
+    }
+
+    @Test
+    void advancePastNeverMovesBackwards() {
+        SnowflakeIdGenerator generator = generator(0);
+        long issued = generator.nextId();
+
+        generator.advancePast(0);
+
+        assertTrue(generator.nextId() > issued);
+    }
+
+    @Test
+    void nodeIdOutsideTenBitsFailsStartup() {
+        assertThrows(IllegalStateException.class, () -> generator(1024));
+        assertThrows(IllegalStateException.class, () -> generator(-1));
+    }
+
+    private static SnowflakeIdGenerator generator(long nodeId) {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        ReflectionTestUtils.setField(generator, "nodeId", nodeId);
+        ReflectionTestUtils.setField(generator, "maxClockDriftMillis", 1000L);
+        generator.init();
+        return generator;
+    }
+}
@@ -0,0 +1,92 @@
+package com.signup.util;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * Key ring and hand-built tokens for the token verification tests.
+ */
+final class TestTokens {
+
+    static final String SECRET = "test-only-secret-that-is-long-enough-for-hmac-sha-256-keys";
+    static final long ROTATION_PERIOD = 2_592_000_000L;
+
+    private TestTokens() {
+    }
+
+    /**
+     * @param signingAlgorithm HS256 or ES256 (with a generated EC pair); HMAC generations verify either way
+     */
+    static SigningKeyRing keyRing(String signingAlgorithm) throws GeneralSecurityException {
+        EcKeySet ecKeySet = new EcKeySet();
+        ReflectionTestUtils.setField(ecKeySet, "signingAlgorithm", signingAlgorithm);
+        ReflectionTestUtils.setField(ecKeySet, "privateKeyValue", "");
+        ReflectionTestUtils.setField(ecKeySet, "publicKeyValue", "");
+        ReflectionTestUtils.setField(ecKeySet, "previousPublicKeyValues", "");
+        ecKeySet.init();
+
+        SigningKeyRing keyRing = new SigningKeyRing();
+        ReflectionTestUtils.setField(keyRing, "secret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "rotationPeriod", ROTATION_PERIOD);
+        ReflectionTestUtils.setField(keyRing, "retention", 3 * ROTATION_PERIOD);
+        ReflectionTestUtils.setField(keyRing, "acceptLegacyTokens", true);
+        ReflectionTestUtils.setField(keyRing, "ecKeySet", ecKeySet);
+        keyRing.init();
+        return keyRing;
+    }
+
+    static JwtParser parser(SigningKeyRing keyRing) {
+        return Jwts.parserBuilder().setSigningKeyResolver(keyRing).build();
+    }
+
+    // Kid of the HMAC generation currently signing
+    static String currentKid() {
+        return Long.toString(System.currentTimeMillis() / ROTATION_PERIOD);
+    }
+
+    // Seconds since the epoch, offset from now
+    static long secondsFromNow(long seconds) {
+        return System.currentTimeMillis() / 1000 + seconds;
+    }
+
+    /**
+     * Sign header.payload exactly as given, for shapes the builder would not produce
+     * @param algorithm JCA algorithm: HmacSHA256, HmacSHA512 or SHA256withECDSAinP1363Format
+     */
+    static String sign(String header, String payload, String algorithm, Key key) throws GeneralSecurityException {
+        String signingInput = encode(header) + "." + encode(payload);
+        byte[] input = signingInput.getBytes(StandardCharsets.US_ASCII);
+        byte[] signature;
+        if (algorithm.startsWith("Hmac")) {
+            Mac mac = Mac.getInstance(algorithm);
+            mac.init(key);
+            signature = mac.doFinal(input);
+        } else {
+            Signature signer = Signature.getInstance(algorithm);
+            signer.initSign((PrivateKey) key);
+            signer.update(input);
+            signature = signer.sign();
+        }
+        return signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Same token with one signature character changed; the first carries only signature bits
+    static String tamperSignature(String token) {
+        int at = token.lastIndexOf('.') + 1;
+        char replacement = token.charAt(at) == 'A' ? 'B' : 'A';
+        return token.substring(0, at) + replacement + token.substring(at + 1);
+    }
+}
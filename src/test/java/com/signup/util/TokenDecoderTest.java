@@ -0,0 +1,131 @@
+package com.signup.util;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.util.Date;
+
+import static com.signup.util.TestTokens.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDecoderTest {
+
+    private static final String PAYLOAD = "{\"sub\":\"user@example.com\",\"exp\":%d,\"ep\":4}";
+
+    private SigningKeyRing keyRing;
+    private TokenDecoder decoder;
+    private EcKeySet ecKeySet;
+
+    @BeforeEach
+    void setUp() throws GeneralSecurityException {
+        keyRing = keyRing("ES256");
+        decoder = new TokenDecoder(keyRing, parser(keyRing));
+        ecKeySet = (EcKeySet) ReflectionTestUtils.getField(keyRing, "ecKeySet");
+    }
+
+    @Test
+    void es256TokenIsVerifiedWithoutJjwt() {
+        String token = keyRing.newSignedBuilder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .claim(JwtUtil.EPOCH_CLAIM, 4)
+                .claim("type", "refresh")
+                .compact();
+
+        TokenClaims claims = decoder.decode(token);
+
+        assertNotNull(claims);
+        assertEquals("user@example.com", claims.getSubject());
+        assertEquals(4, claims.getEpoch());
+        assertTrue(claims.isRefresh());
+        assertNull(decoder.decode(tamperSignature(token)));
+    }
+
+    @Test
+    void unhandledHeaderFallsBackToJjwt() throws GeneralSecurityException {
+        // cty is neither read by the fast path nor by the streaming decoder
+        String header = "{\"alg\":\"HS256\",\"kid\":\"" + currentKid() + "\",\"cty\":\"JWT\"}";
+        String token = sign(header, PAYLOAD.formatted(secondsFromNow(60)), "HmacSHA256", keyRing.verificationKey(currentKid()));
+
+        TokenClaims claims = decoder.decode(token);
+
+        assertNotNull(claims);
+        assertEquals("user@example.com", claims.getSubject());
+        assertEquals(4, claims.getEpoch());
+        assertNull(decoder.decode(tamperSignature(token)), "jjwt checks the signature too");
+    }
+
+    @Test
+    void otherAlgorithmFallsBackToJjwt() {
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, currentKid())
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyRing.verificationKey(currentKid()), SignatureAlgorithm.HS512)
+                .compact();
+
+        assertEquals("user@example.com", decoder.decode(token).getSubject());
+    }
+
+    @Test
+    void expiredTokenIsRejectedOnEveryPath() throws GeneralSecurityException {
+        String payload = PAYLOAD.formatted(secondsFromNow(-60));
+        String es256 = sign("{\"kid\":\"" + ecKeySet.signingKid() + "\",\"alg\":\"ES256\"}", payload,
+                "SHA256withECDSAinP1363Format", ecKeySet.signingKey());
+        String fallback = sign("{\"alg\":\"HS256\",\"kid\":\"" + currentKid() + "\",\"cty\":\"JWT\"}", payload,
+                "HmacSHA256", keyRing.verificationKey(currentKid()));
+
+        assertNull(decoder.decode(es256));
+        assertNull(decoder.decode(fallback));
+    }
+
+    @Test
+    void hs256HeaderWithEcKidIsRejected() throws GeneralSecurityException {
+        // The classic confusion: the public key, which anyone can fetch, used as an HMAC secret
+        PublicKey publicKey = ecKeySet.verificationKey(ecKeySet.signingKid());
+        SecretKeySpec forged = new SecretKeySpec(publicKey.getEncoded(), "HmacSHA256");
+        String header = "{\"kid\":\"" + ecKeySet.signingKid() + "\",\"alg\":\"HS256\"}";
+
+        assertNull(decoder.decode(sign(header, PAYLOAD.formatted(secondsFromNow(60)), "HmacSHA256", forged)));
+    }
+
+    @Test
+    void es256HeaderWithHmacKidIsRejected() throws GeneralSecurityException {
+        String header = "{\"kid\":\"" + currentKid() + "\",\"alg\":\"ES256\"}";
+
+        assertNull(decoder.decode(sign(header, PAYLOAD.formatted(secondsFromNow(60)),
+                "SHA256withECDSAinP1363Format", ecKeySet.signingKey())));
+    }
+
+    @Test
+    void unsignedTokenIsRejected() {
+        String payload = encode(PAYLOAD.formatted(secondsFromNow(60)));
+
+        assertNull(decoder.decode(encode("{\"alg\":\"none\"}") + "." + payload + "."));
+        assertNull(decoder.decode(encode("{\"alg\":\"none\",\"kid\":\"" + currentKid() + "\"}") + "." + payload + "."));
+    }
+
+    @Test
+    void unknownKidIsRejected() throws GeneralSecurityException {
+        String header = "{\"kid\":\"no-such-key\",\"alg\":\"ES256\"}";
+
+        assertNull(decoder.decode(sign(header, PAYLOAD.formatted(secondsFromNow(60)),
+                "SHA256withECDSAinP1363Format", ecKeySet.signingKey())));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertNull(decoder.decode(null));
+        assertNull(decoder.decode(""));
+        assertNull(decoder.decode("a.b"));
+        assertNull(decoder.decode("a.b.c.d"));
+        assertNull(decoder.decode("!!.??.**"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.signup.util;
+
+import io.jsonwebtoken.JwtParser;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.function.ToIntFunction;
+
+/**
+ * Throughput of signing and of the token verification paths, HS256 against
+ * ES256. HS256 tokens are verified by the fast verifier, the full decoder
+ * (fast path plus fallback checks) and jjwt; ES256 tokens, which skip the
+ * fast path, by the decoder and jjwt. Not a test; run it from a build with
+ * the test classes compiled:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) com.signup.util.TokenVerificationBenchmark
+ * </pre>
+ *
+ * Each path is warmed up before it is timed, and every result feeds a
+ * checksum so the JIT cannot drop the work. Bytes allocated per token come
+ * from the measuring thread's allocation counter over the timed rounds.
+ * ES256 is two orders of magnitude slower, so it runs fewer rounds.
+ * Compare runs on the same machine only.
+ */
+public final class TokenVerificationBenchmark {
+
+    private static final int TOKENS = 1_024;
+    private static final int HS256_ROUNDS = 200; // Each of warm-up and measurement
+    private static final int ES256_ROUNDS = 5;
+
+    private TokenVerificationBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] subjects = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            subjects[i] = "user" + i + "@example.com";
+        }
+
+        SigningKeyRing hs256 = TestTokens.keyRing("HS256");
+        JwtParser hs256Parser = TestTokens.parser(hs256);
+        Hs256FastVerifier verifier = new Hs256FastVerifier(hs256);
+        TokenDecoder hs256Decoder = new TokenDecoder(hs256, hs256Parser);
+        String[] hs256Tokens = sign(hs256, subjects);
+
+        run("HS256 sign", subjects, HS256_ROUNDS, subject -> sign(hs256, subject).length());
+        run("HS256 fast verifier", hs256Tokens, HS256_ROUNDS, token -> verifier.verify(token).getSubject().length());
+        run("HS256 token decoder", hs256Tokens, HS256_ROUNDS, token -> hs256Decoder.decode(token).getSubject().length());
+        run("HS256 jjwt", hs256Tokens, HS256_ROUNDS, token -> hs256Parser.parseClaimsJws(token).getBody().getSubject().length());
+
+        SigningKeyRing es256 = TestTokens.keyRing("ES256");
+        JwtParser es256Parser = TestTokens.parser(es256);
+        TokenDecoder es256Decoder = new TokenDecoder(es256, es256Parser);
+        String[] es256Tokens = sign(es256, subjects);
+
+        run("ES256 sign", subjects, ES256_ROUNDS, subject -> sign(es256, subject).length());
+        run("ES256 token decoder", es256Tokens, ES256_ROUNDS, token -> es256Decoder.decode(token).getSubject().length());
+        run("ES256 jjwt", es256Tokens, ES256_ROUNDS, token -> es256Parser.parseClaimsJws(token).getBody().getSubject().length());
+    }
+
+    private static String[] sign(SigningKeyRing keyRing, String[] subjects) {
+        String[] tokens = new String[subjects.length];
+        for (int i = 0; i < subjects.length; i++) {
+            tokens[i] = sign(keyRing, subjects[i]);
+        }
+        return tokens;
+    }
+
+    // An access token as JwtUtil issues it, signed in the key ring's mode
+    private static String sign(SigningKeyRing keyRing, String subject) {
+        return keyRing.newSignedBuilder()
+                .setSubject(subject)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .claim(JwtUtil.EPOCH_CLAIM, subject.length())
+                .compact();
+    }
+
+    private static void run(String name, String[] inputs, int rounds, ToIntFunction<String> operation) {
+        long checksum = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (String input : inputs) {
+                checksum += operation.applyAsInt(input);
+            }
+        }
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String input : inputs) {
+                checksum += operation.applyAsInt(input);
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = allocatedBytes() - allocatedBefore;
+        long operations = (long) rounds * inputs.length;
+        double nanosPerToken = (double) elapsed / operations;
+        System.out.printf("%-20s %8.0f ns/token %10.0f tokens/s %8.0f B/token (checksum %d)%n",
+                name, nanosPerToken, 1e9 / nanosPerToken, (double) allocated / operations, checksum);
+    }
+
+    // Bytes allocated by this thread so far
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}